@@ -1,54 +1,44 @@
 package com.tu2l.common.util;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
 import com.tu2l.common.constant.CommonConstants;
 
 public class CommonUtil {
 
     public String decodeBase64StringToString(String base64String) {
         byte[] decodedBytes = java.util.Base64.getDecoder().decode(base64String);
-        return new String(decodedBytes);
+        return new String(decodedBytes, StandardCharsets.UTF_8);
     }
 
     public String decodeAndSanitizeBase64StringToString(String base64String) {
         return sanitizeHtml(decodeBase64StringToString(base64String));
     }
 
+    /**
+     * Streaming form of {@link #decodeAndSanitizeBase64StringToString(String)}:
+     * the returned reader decodes the UTF-8 HTML and sanitizes it as it is read,
+     * using fixed-size buffers whatever the size of the document. Invalid
+     * base64 surfaces as an {@link java.io.IOException} while reading.
+     */
+    public Reader decodeAndSanitizeBase64(CharSequence base64) {
+        InputStream decoded = java.util.Base64.getDecoder().wrap(new AsciiInputStream(base64));
+        return HtmlSanitizer.reader(new InputStreamReader(decoded, StandardCharsets.UTF_8));
+    }
+
     /**
      * Sanitizes HTML content by removing potentially dangerous tags and attributes.
      * This helps prevent XSS attacks and limits file system access risks.
      *
      * @param html The HTML content to sanitize
      * @return Sanitized HTML content
+     * @see HtmlSanitizer
      */
     public String sanitizeHtml(String html) {
-        if (html == null) {
-            return null;
-        }
-
-        // Remove script tags and their content
-        String sanitized = html.replaceAll("(?i)<script[^>]*>.*?</script>", "");
-
-        // Remove potentially dangerous event handlers
-        sanitized = sanitized.replaceAll("(?i)\\s*on\\w+\\s*=\\s*['\"][^'\"]*['\"]?", "");
-
-        // Remove javascript: protocol from href and src attributes
-        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?javascript:[^'\"\\s>]*['\"]?", "");
-
-        // Remove file:// protocol to prevent local file access
-        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?file://[^'\"\\s>]*['\"]?", "");
-
-        // Remove data: URLs that could contain malicious content
-        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?data:[^'\"\\s>]*['\"]?", "");
-
-        // Remove iframe tags
-        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*>.*?</iframe>", "");
-        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*/?>", "");
-
-        // Remove object and embed tags
-        sanitized = sanitized.replaceAll("(?i)<(object|embed)[^>]*>.*?</(object|embed)>", "");
-        sanitized = sanitized.replaceAll("(?i)<(object|embed)[^>]*/?>", "");
-
-        return sanitized;
+        return HtmlSanitizer.sanitize(html);
     }
 
     public String encodeByteArrayToBase64String(byte[] input) {
@@ -75,4 +65,35 @@ public class CommonUtil {
         return !isNullOrEmpty(email) && email.matches(CommonConstants.Pattern.EMAIL);
     }
 
+    // Feeds base64 text to the decoder without copying it into a byte array
+    private static final class AsciiInputStream extends InputStream {
+        private final CharSequence chars;
+        private int position;
+
+        AsciiInputStream(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read() {
+            return position < chars.length() ? toByte(chars.charAt(position++)) : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int count = Math.min(length, chars.length() - position);
+            if (count <= 0) {
+                return length == 0 ? 0 : -1;
+            }
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) toByte(chars.charAt(position++));
+            }
+            return count;
+        }
+
+        // Anything outside ASCII becomes a byte the decoder rejects
+        private static int toByte(char c) {
+            return c < 0x80 ? c : 0xFF;
+        }
+    }
 }
@@ -0,0 +1,585 @@
+package com.tu2l.common.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Single-pass HTML sanitizer. It removes the same constructs as the regular
+ * expressions it replaces, in one left-to-right scan with fixed-size buffers:
+ * <ul>
+ * <li>{@code script}, {@code iframe} and {@code object} elements with their
+ * content, and {@code embed} tags</li>
+ * <li>{@code on*} event handler attributes, with the whitespace before them</li>
+ * <li>{@code href} and {@code src} attributes whose value is a
+ * {@code javascript:}, {@code file://} or {@code data:} URL</li>
+ * </ul>
+ * Like the regular expressions, matching does not depend on context: the
+ * patterns are removed wherever they occur, including inside comments and
+ * attribute values. A tokenizer that tracked such context would have to parse
+ * exactly like every browser to be safe; matching everywhere does not.
+ * <p>
+ * Where the regular expressions were lax, this is stricter: elements spanning
+ * several lines, unquoted handlers and values containing the other kind of
+ * quote are removed entirely, and an unclosed {@code script} element, or an
+ * unclosed {@code iframe} or {@code object} whose tag is not self-closing, is
+ * removed to the end of the document. Text that joins up into a removable
+ * construct once something between it was removed is scanned again, so
+ * removal cannot assemble a new {@code <script>}.
+ * <p>
+ * Instances are single-use and not thread-safe; use the static methods.
+ */
+public final class HtmlSanitizer {
+    private static final int BUFFER_SIZE = 8192;
+    // Output kept back from the sink so that it can be retracted or scanned again
+    private static final int RETAINED_OUTPUT = 1024;
+
+    private static final String[] REMOVED_ELEMENTS = { "script", "iframe", "object", "embed" };
+    private static final int SCRIPT = 0;
+    private static final int EMBED = 3;
+    private static final String[] URL_ATTRIBUTES = { "href", "src" };
+    private static final String[] UNSAFE_SCHEMES = { "javascript:", "file://", "data:" };
+
+    private static final int TEXT = 0;
+    private static final int TAG_NAME = 1;
+    private static final int HANDLER_SPACE = 2;
+    private static final int HANDLER_NAME = 3;
+    private static final int HANDLER_AFTER_NAME = 4;
+    private static final int HANDLER_VALUE = 5;
+    private static final int URL_NAME = 6;
+    private static final int URL_AFTER_NAME = 7;
+    private static final int URL_VALUE = 8;
+    private static final int URL_SCHEME = 9;
+    private static final int SKIP_TAG = 10;
+    private static final int SKIP_CONTENT = 11;
+    private static final int SKIP_QUOTED = 12;
+    private static final int SKIP_UNQUOTED = 13;
+
+    private final Source source;
+    private final Sink sink;
+    private final char[] input;
+    private int inputPos;
+    private int inputLimit;
+    private char[] pending = new char[64];
+    private int pendingCount;
+
+    // Output not yet written to the sink; base is the offset of out[0] in the whole output
+    private final char[] out;
+    private int outCount;
+    private long base;
+    private char lastFlushed = ' ';
+    private boolean finished;
+
+    private int mode = TEXT;
+    // Output offset where the current candidate match started
+    private long mark;
+    private int index;
+    private int choice;
+    private char quote;
+    private boolean closingTag;
+    private boolean selfClosing;
+    // Span from the start of recently failed candidates to the furthest character they failed at
+    private long failedMark = -1;
+    private long failedAt = -1;
+    private long rejoinFrom = -1;
+
+    private HtmlSanitizer(Source source, Sink sink, int bufferSize) {
+        this.source = source;
+        this.sink = sink;
+        this.input = new char[bufferSize];
+        this.out = new char[Math.max(bufferSize, 2 * RETAINED_OUTPUT)];
+    }
+
+    /**
+     * @return the sanitized HTML, or {@code null} if {@code html} is null
+     */
+    public static String sanitize(CharSequence html) {
+        if (html == null) {
+            return null;
+        }
+        StringBuilder sanitized = new StringBuilder(html.length());
+        int bufferSize = Math.min(BUFFER_SIZE, Math.max(html.length(), 16));
+        try {
+            new HtmlSanitizer(new CharSequenceSource(html), sanitized::append, bufferSize).run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sanitized.toString();
+    }
+
+    /**
+     * Sanitizes {@code html} into {@code sanitized} using constant memory. Neither
+     * stream is closed.
+     */
+    public static void sanitize(Reader html, Writer sanitized) throws IOException {
+        new HtmlSanitizer(html::read, sanitized::write, BUFFER_SIZE).run();
+    }
+
+    /**
+     * Returns a reader of the sanitized {@code html}, which is read on demand
+     * using constant memory. Closing it closes {@code html}.
+     */
+    public static Reader reader(Reader html) {
+        return new SanitizingReader(html);
+    }
+
+    private void run() throws IOException {
+        while (advance()) {
+            // Output is passed to the sink as it is produced
+        }
+    }
+
+    /**
+     * Scans input until some output was passed to the sink, or to the end.
+     *
+     * @return {@code false} once all input was scanned and written
+     */
+    private boolean advance() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long flushed = base;
+        int c;
+        while ((c = next()) >= 0) {
+            step((char) c);
+            if (base != flushed) {
+                return true;
+            }
+        }
+        finished = true;
+        sink.write(out, 0, outCount);
+        outCount = 0;
+        return false;
+    }
+
+    private void step(char c) throws IOException {
+        switch (mode) {
+            case TEXT -> text(c);
+            case TAG_NAME -> tagName(c);
+            case HANDLER_SPACE -> {
+                if (isSpace(c)) {
+                    emit(c);
+                } else if (c == 'o' || c == 'O') {
+                    emit(c);
+                    mode = HANDLER_NAME;
+                    index = 1;
+                } else {
+                    // Whitespace alone cannot join into anything, so it is not scanned again
+                    mode = TEXT;
+                    push(c);
+                }
+            }
+            case HANDLER_NAME -> handlerName(c);
+            case HANDLER_AFTER_NAME -> {
+                if (isSpace(c)) {
+                    emit(c);
+                } else if (c == '=') {
+                    emit(c);
+                    mode = HANDLER_VALUE;
+                } else {
+                    fail(c);
+                }
+            }
+            case HANDLER_VALUE -> handlerValue(c);
+            case URL_NAME -> {
+                String name = URL_ATTRIBUTES[choice];
+                if (toLower(c) == name.charAt(index)) {
+                    emit(c);
+                    if (++index == name.length()) {
+                        mode = URL_AFTER_NAME;
+                    }
+                } else {
+                    fail(c);
+                }
+            }
+            case URL_AFTER_NAME -> {
+                if (isSpace(c)) {
+                    emit(c);
+                } else if (c == '=') {
+                    emit(c);
+                    mode = URL_VALUE;
+                    quote = 0;
+                } else {
+                    fail(c);
+                }
+            }
+            case URL_VALUE -> urlValue(c);
+            case URL_SCHEME -> urlScheme(c);
+            case SKIP_TAG -> {
+                if (c == '>') {
+                    // Browsers ignore a self-closing slash on script, which then runs to its end tag
+                    if (closingTag || choice == EMBED || (selfClosing && choice != SCRIPT)) {
+                        endSkip();
+                    } else {
+                        mode = SKIP_CONTENT;
+                        index = 0;
+                    }
+                } else if (!isSpace(c)) {
+                    selfClosing = c == '/';
+                }
+            }
+            case SKIP_CONTENT -> skipContent(c);
+            case SKIP_QUOTED -> {
+                if (c == quote) {
+                    endSkip();
+                }
+            }
+            case SKIP_UNQUOTED -> {
+                if (isSpace(c) || c == '>') {
+                    push(c);
+                    endSkip();
+                }
+            }
+            default -> throw new IllegalStateException("Unknown mode " + mode);
+        }
+    }
+
+    private void text(char c) throws IOException {
+        if (c == '<') {
+            begin(TAG_NAME);
+            index = 0;
+            choice = (1 << REMOVED_ELEMENTS.length) - 1;
+        } else if (isSpace(c)) {
+            begin(HANDLER_SPACE);
+        } else if ((c == 'o' || c == 'O') && atWordBoundary()) {
+            begin(HANDLER_NAME);
+            index = 1;
+        } else if ((c == 'h' || c == 'H' || c == 's' || c == 'S') && atWordBoundary()) {
+            begin(URL_NAME);
+            choice = toLower(c) == 'h' ? 0 : 1;
+            index = 1;
+        }
+        emit(c);
+    }
+
+    private void tagName(char c) throws IOException {
+        int matched = -1;
+        int remaining = 0;
+        char lower = toLower(c);
+        for (int i = 0; i < REMOVED_ELEMENTS.length; i++) {
+            if ((choice & (1 << i)) == 0) {
+                continue;
+            }
+            String name = REMOVED_ELEMENTS[i];
+            if (index == name.length()) {
+                matched = i;
+            } else if (name.charAt(index) == lower) {
+                remaining |= 1 << i;
+            }
+        }
+        if (matched >= 0 && (isSpace(c) || c == '/' || c == '>')) {
+            commit();
+            choice = matched;
+            closingTag = false;
+            selfClosing = c == '/';
+            if (c != '>') {
+                mode = SKIP_TAG;
+            } else if (matched == EMBED) {
+                endSkip();
+            } else {
+                mode = SKIP_CONTENT;
+                index = 0;
+            }
+        } else if (remaining != 0) {
+            emit(c);
+            choice = remaining;
+            index++;
+        } else {
+            // Scan what followed the '<' again: it may start another match
+            recordFailure();
+            push(c);
+            refeed(mark + 1);
+            mode = TEXT;
+        }
+    }
+
+    private void handlerName(char c) throws IOException {
+        if (index == 1) {
+            if (c != 'n' && c != 'N') {
+                fail(c);
+                return;
+            }
+        } else if (index == 2) {
+            if (!isWord(c)) {
+                fail(c);
+                return;
+            }
+        } else if (isSpace(c)) {
+            mode = HANDLER_AFTER_NAME;
+        } else if (c == '=') {
+            mode = HANDLER_VALUE;
+        } else if (!isWord(c)) {
+            fail(c);
+            return;
+        }
+        emit(c);
+        index++;
+    }
+
+    private void handlerValue(char c) throws IOException {
+        if (isSpace(c)) {
+            emit(c);
+        } else if (c == '"' || c == '\'') {
+            commit();
+            quote = c;
+            mode = SKIP_QUOTED;
+        } else if (c == '>') {
+            commit();
+            push(c);
+            endSkip();
+        } else {
+            commit();
+            mode = SKIP_UNQUOTED;
+        }
+    }
+
+    private void urlValue(char c) throws IOException {
+        if (isSpace(c)) {
+            emit(c);
+            return;
+        }
+        if ((c == '"' || c == '\'') && quote == 0) {
+            emit(c);
+            quote = c;
+            return;
+        }
+        char lower = toLower(c);
+        for (int i = 0; i < UNSAFE_SCHEMES.length; i++) {
+            if (UNSAFE_SCHEMES[i].charAt(0) == lower) {
+                emit(c);
+                mode = URL_SCHEME;
+                choice = i;
+                index = 1;
+                return;
+            }
+        }
+        fail(c);
+    }
+
+    private void urlScheme(char c) throws IOException {
+        String scheme = UNSAFE_SCHEMES[choice];
+        if (c == '\t' || c == '\n' || c == '\r') {
+            // Browsers drop these anywhere in a URL
+            emit(c);
+        } else if (toLower(c) == scheme.charAt(index)) {
+            emit(c);
+            if (++index == scheme.length()) {
+                commit();
+                mode = quote != 0 ? SKIP_QUOTED : SKIP_UNQUOTED;
+            }
+        } else {
+            fail(c);
+        }
+    }
+
+    private void skipContent(char c) {
+        String name = REMOVED_ELEMENTS[choice];
+        if (index == 0) {
+            index = c == '<' ? 1 : 0;
+        } else if (index == 1) {
+            index = c == '/' ? 2 : c == '<' ? 1 : 0;
+        } else if (index - 2 < name.length()) {
+            index = toLower(c) == name.charAt(index - 2) ? index + 1 : c == '<' ? 1 : 0;
+        } else if (c == '>') {
+            endSkip();
+        } else if (isSpace(c) || c == '/') {
+            closingTag = true;
+            mode = SKIP_TAG;
+        } else {
+            index = c == '<' ? 1 : 0;
+        }
+    }
+
+    private void begin(int candidate) {
+        mode = candidate;
+        mark = base + outCount;
+    }
+
+    private void fail(char c) {
+        recordFailure();
+        mode = TEXT;
+        push(c);
+    }
+
+    private void recordFailure() {
+        long at = base + outCount;
+        if (failedAt >= mark) {
+            // Overlaps the span of earlier failures: track them together
+            failedMark = Math.min(failedMark, mark);
+            failedAt = Math.max(failedAt, at);
+        } else {
+            failedMark = mark;
+            failedAt = at;
+        }
+    }
+
+    /**
+     * Drops the output of the current candidate. If earlier candidates failed
+     * on text this one removes, what they matched is scanned again once the
+     * removal is complete, joined with what follows.
+     */
+    private void commit() {
+        rejoinFrom = failedMark < mark && mark <= failedAt ? failedMark : -1;
+        failedAt = -1;
+        failedMark = -1;
+        outCount = (int) Math.max(mark - base, 0);
+    }
+
+    private void endSkip() {
+        mode = TEXT;
+        if (rejoinFrom >= 0) {
+            refeed(rejoinFrom);
+            rejoinFrom = -1;
+        }
+    }
+
+    // Moves output from offset 'from' back in front of the unread input
+    private void refeed(long from) {
+        int start = (int) Math.max(from - base, 0);
+        for (int i = outCount - 1; i >= start; i--) {
+            push(out[i]);
+        }
+        outCount = Math.min(outCount, start);
+    }
+
+    private void push(char c) {
+        if (pendingCount == pending.length) {
+            char[] grown = new char[pending.length * 2];
+            System.arraycopy(pending, 0, grown, 0, pendingCount);
+            pending = grown;
+        }
+        pending[pendingCount++] = c;
+    }
+
+    private int next() throws IOException {
+        if (pendingCount > 0) {
+            return pending[--pendingCount];
+        }
+        if (inputPos == inputLimit) {
+            int read;
+            do {
+                read = source.read(input, 0, input.length);
+            } while (read == 0);
+            if (read < 0) {
+                return -1;
+            }
+            inputPos = 0;
+            inputLimit = read;
+        }
+        return input[inputPos++];
+    }
+
+    private void emit(char c) throws IOException {
+        if (outCount == out.length) {
+            int flushed = outCount - RETAINED_OUTPUT;
+            sink.write(out, 0, flushed);
+            lastFlushed = out[flushed - 1];
+            System.arraycopy(out, flushed, out, 0, RETAINED_OUTPUT);
+            outCount = RETAINED_OUTPUT;
+            base += flushed;
+        }
+        out[outCount++] = c;
+    }
+
+    private boolean atWordBoundary() {
+        return !isWord(outCount > 0 ? out[outCount - 1] : lastFlushed);
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    // Same as \w in the regular expressions this replaces
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static char toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        int read(char[] buffer, int offset, int length) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Sink {
+        void write(char[] buffer, int offset, int length) throws IOException;
+    }
+
+    private static final class SanitizingReader extends Reader {
+        private final Reader html;
+        private final HtmlSanitizer sanitizer;
+        private char[] ready = new char[BUFFER_SIZE];
+        private int readyPos;
+        private int readyCount;
+        private boolean done;
+
+        SanitizingReader(Reader html) {
+            this.html = html;
+            this.sanitizer = new HtmlSanitizer(html::read, this::accept, BUFFER_SIZE);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (readyPos == readyCount) {
+                if (done) {
+                    return -1;
+                }
+                readyPos = 0;
+                readyCount = 0;
+                done = !sanitizer.advance();
+            }
+            int count = Math.min(length, readyCount - readyPos);
+            System.arraycopy(ready, readyPos, buffer, offset, count);
+            readyPos += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            html.close();
+        }
+
+        private void accept(char[] buffer, int offset, int length) {
+            if (readyCount + length > ready.length) {
+                char[] grown = new char[Math.max(ready.length * 2, readyCount + length)];
+                System.arraycopy(ready, 0, grown, 0, readyCount);
+                ready = grown;
+            }
+            System.arraycopy(buffer, offset, ready, readyCount, length);
+            readyCount += length;
+        }
+    }
+
+    private static final class CharSequenceSource implements Source {
+        private final CharSequence chars;
+        private int position;
+
+        CharSequenceSource(CharSequence chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int count = Math.min(length, chars.length() - position);
+            if (count <= 0) {
+                return -1;
+            }
+            if (chars instanceof String string) {
+                string.getChars(position, position + count, buffer, offset);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    buffer[offset + i] = chars.charAt(position + i);
+                }
+            }
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.tu2l.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+public class CommonUtilTest {
+    private final CommonUtil commonUtil = new CommonUtil();
+
+    @Test
+    public void streamedDecodeMatchesDecodeToString() throws IOException {
+        String html = "<p>Zoë Ångström – 東京</p><script>x()</script>".repeat(2000);
+        String base64 = Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(commonUtil.decodeAndSanitizeBase64StringToString(base64), read(base64));
+        assertEquals("<p>Zoë Ångström – 東京</p>".repeat(2000), read(base64));
+    }
+
+    @Test
+    public void streamedDecodeRejectsInvalidBase64() {
+        assertThrows(IOException.class, () -> read("PHA+!!!"));
+        // Would decode as "AAAA" if non-ASCII characters were truncated to bytes
+        assertThrows(IOException.class, () -> read("ŁŁŁŁ"));
+    }
+
+    private String read(String base64) throws IOException {
+        StringWriter html = new StringWriter();
+        try (Reader reader = commonUtil.decodeAndSanitizeBase64(base64)) {
+            reader.transferTo(html);
+        }
+        return html.toString();
+    }
+}
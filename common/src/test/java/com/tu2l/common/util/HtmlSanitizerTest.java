@@ -0,0 +1,142 @@
+package com.tu2l.common.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class HtmlSanitizerTest {
+    // Documents the regular expression chain sanitized identically
+    private static final List<String> CORPUS = List.of(
+            "",
+            "plain text without markup",
+            "<html><head><title>Resume</title></head><body><h1>Jane Doe</h1></body></html>",
+            "<p class=\"summary\" style=\"color: #333\">Senior engineer, 10 years</p>",
+            "<script>alert(1)</script><p>kept</p>",
+            "<p>before</p><SCRIPT type=\"text/javascript\">var a = '<b>';</SCRIPT><p>after</p>",
+            "<div><script src=\"https://cdn.example.com/x.js\"></script></div>",
+            "<p onclick=\"steal()\">Click</p>",
+            "<img src=\"photo.png\" onerror='alert(1)' alt=\"me\">",
+            "<body onload = \"init()\" class=\"cv\">",
+            "<a href=\"javascript:void(0)\">link</a>",
+            "<a HREF='JavaScript:alert(1)'>link</a>",
+            "<img src=\"file:///etc/passwd\">",
+            "<img src=file:///etc/passwd>",
+            "<img src=\"data:image/png;base64,iVBORw0KGgo=\" alt=\"logo\">",
+            "<a href=\"https://example.com/profile\">Profile</a><img src=\"/static/me.jpg\">",
+            "<iframe src=\"https://evil.example\"></iframe><p>after</p>",
+            "<p>a</p><iframe src=\"x\"/><p>b</p>",
+            "<img src=\"data:image/png;base64,AAAA\" onload=\"track()\">",
+            "<object data=\"movie.swf\"><param name=\"q\" value=\"high\"></object>",
+            "<embed src=\"movie.swf\" type=\"application/x-shockwave-flash\"/>",
+            "<ul>\n  <li>Java</li>\n  <li onmouseover=\"x()\">SQL</li>\n</ul>",
+            "<table><tr><td>2019 - 2024</td><td>Lead &amp; mentor</td></tr></table>",
+            "<style>body { font-family: serif; } .on { color: red; }</style>",
+            "<!-- comment --><p>x &lt; y &gt; z</p>",
+            "<p>Emails: jane@example.com, phone: +1 555 0100</p>",
+            "<span data-src=\"javascript:x\">y</span>",
+            "<a href=\"mailto:jane@example.com\">mail</a>");
+
+    @Test
+    public void matchesRegexSanitizerOnCorpus() {
+        for (String html : CORPUS) {
+            assertEquals(regexSanitize(html), HtmlSanitizer.sanitize(html), html);
+        }
+        String resume = resume(2000);
+        assertEquals(regexSanitize(resume), HtmlSanitizer.sanitize(resume));
+    }
+
+    @Test
+    public void streamsIndependentlyOfReadSizes() throws IOException {
+        String resume = resume(500);
+        StringWriter sanitized = new StringWriter();
+        HtmlSanitizer.sanitize(new OneCharReader(resume), sanitized);
+        assertEquals(HtmlSanitizer.sanitize(resume), sanitized.toString());
+
+        StringWriter pulled = new StringWriter();
+        try (Reader reader = HtmlSanitizer.reader(new OneCharReader(resume))) {
+            reader.transferTo(pulled);
+        }
+        assertEquals(sanitized.toString(), pulled.toString());
+    }
+
+    @Test
+    public void removesWhatTheRegexSanitizerMissed() {
+        // Elements spanning lines
+        assertEquals("<p>a</p><p>b</p>", HtmlSanitizer.sanitize("<p>a</p><script>\nalert(1)\n</script><p>b</p>"));
+        assertEquals("<p>a</p>", HtmlSanitizer.sanitize("<p>a</p><iframe\nsrc=x>\n</iframe >"));
+        // Unquoted handlers and values containing the other quote
+        assertEquals("<p>x</p>", HtmlSanitizer.sanitize("<p onclick=alert(1)>x</p>"));
+        assertEquals("<p>x</p>", HtmlSanitizer.sanitize("<p onclick=\"alert('x')\">x</p>"));
+        assertEquals("<a >x</a>", HtmlSanitizer.sanitize("<a href=\"javascript:alert('x')\">x</a>"));
+        // URLs browsers would still treat as javascript:
+        assertEquals("<a >x</a>", HtmlSanitizer.sanitize("<a href=\" java\tscript:alert(1)\">x</a>"));
+        // Unclosed elements
+        assertEquals("<p>a</p>", HtmlSanitizer.sanitize("<p>a</p><script>alert(1)"));
+        // Constructs that only appear once something inside them is removed
+        assertEquals("<p>x</p>", HtmlSanitizer.sanitize("<scr<script>a</script>ipt>alert(1)</script><p>x</p>"));
+        assertEquals("<p>x</p>", HtmlSanitizer.sanitize("<p o<script>a</script>nclick=\"alert(1)\">x</p>"));
+        assertEquals("<a >x</a>", HtmlSanitizer.sanitize("<a hr<embed>ef=\"javascript:alert(1)\">x</a>"));
+        assertEquals("", HtmlSanitizer.sanitize("<onclick=''script>alert(1)</script>"));
+    }
+
+    @Test
+    public void leavesWordsContainingPatternsAlone() {
+        assertEquals("<p>Wonderful = \"yes\"</p>", HtmlSanitizer.sanitize("<p>Wonderful = \"yes\"</p>"));
+        assertEquals("<objective>x</objective>", HtmlSanitizer.sanitize("<objective>x</objective>"));
+        assertNull(HtmlSanitizer.sanitize(null));
+    }
+
+    // The implementation CommonUtil.sanitizeHtml used before HtmlSanitizer
+    static String regexSanitize(String html) {
+        String sanitized = html.replaceAll("(?i)<script[^>]*>.*?</script>", "");
+        sanitized = sanitized.replaceAll("(?i)\\s*on\\w+\\s*=\\s*['\"][^'\"]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?javascript:[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?file://[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?data:[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*>.*?</iframe>", "");
+        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*/?>", "");
+        sanitized = sanitized.replaceAll("(?i)<(object|embed)[^>]*>.*?</(object|embed)>", "");
+        return sanitized.replaceAll("(?i)<(object|embed)[^>]*/?>", "");
+    }
+
+    static String resume(int sections) {
+        StringBuilder html = new StringBuilder("<html><head><style>h2 { color: #222; }</style></head><body>\n");
+        for (int i = 0; i < sections; i++) {
+            html.append("<section class=\"job\" id=\"job-").append(i).append("\">\n")
+                    .append("  <h2>Software Engineer ").append(i).append("</h2>\n")
+                    .append("  <p>Built services, <a href=\"https://example.com/").append(i)
+                    .append("\">project</a> and tooling.</p>\n");
+            if (i % 50 == 0) {
+                html.append("  <img src=\"data:image/png;base64,AAAA\" onload=\"track(").append(i).append(")\">")
+                        .append("<script>track(").append(i).append(")</script>\n");
+            }
+            html.append("</section>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static final class OneCharReader extends Reader {
+        private final StringReader delegate;
+
+        OneCharReader(String text) {
+            this.delegate = new StringReader(text);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return delegate.read(buffer, offset, Math.min(length, 1));
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
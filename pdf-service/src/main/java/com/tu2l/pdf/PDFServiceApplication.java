@@ -2,13 +2,19 @@ package com.tu2l.pdf;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
+@EnableConfigurationProperties(PDFServiceProperties.class)
 public class PDFServiceApplication {
   
     public static void main(String[] args) {
@@ -0,0 +1,225 @@
+package com.tu2l.pdf.admission;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.AdmissionRejectedException;
+import com.tu2l.pdf.exception.PayloadLengthRequiredException;
+import com.tu2l.pdf.util.ContainerResources;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the work pdf-service accepts at once with two independent limits:
+ * the number of renders running concurrently and the total size of request
+ * payloads held in memory. A caller that hits a limit queues for at most
+ * {@code maxQueueWait} and is then rejected with an
+ * {@link AdmissionRejectedException}.
+ * <p>
+ * The payload budget is accounted in KiB so that it fits a {@link Semaphore};
+ * a single payload larger than the whole budget is charged the whole budget,
+ * which lets it run, but only on its own.
+ * <p>
+ * {@code reservedInteractiveRenders} of the render slots are kept for
+ * interactive requests: background renders take a slot of their own, smaller
+ * limit before a render slot, so a backlog of jobs never occupies every slot
+ * and interactive latency does not depend on its size.
+ * <p>
+ * With virtual threads ({@code spring.threads.virtual.enabled}) the servlet
+ * and task thread pools no longer cap how many renders can start, so the
+ * render limit is enforced even when admission control is disabled; callers
+ * then simply wait for a slot instead of being rejected.
+ */
+@Slf4j
+@Component
+public class AdmissionController {
+    private static final String METRIC_PREFIX = "pdf.admission";
+    private static final long KIB = 1024L;
+
+    private final boolean enabled;
+    private final boolean renderLimitEnforced;
+    private final int maxConcurrentRenders;
+    private final int maxBackgroundRenders;
+    private final int payloadBudgetKib;
+    private final Duration maxQueueWait;
+    private final Duration retryAfter;
+
+    private final Semaphore renderPermits;
+    private final Semaphore backgroundPermits;
+    private final Semaphore payloadPermits;
+
+    private final Timer renderQueueWait;
+    private final Timer payloadQueueWait;
+    private final Counter renderRejections;
+    private final Counter payloadRejections;
+
+    public AdmissionController(PDFServiceProperties properties, MeterRegistry meterRegistry,
+                               Environment environment) {
+        PDFServiceProperties.Admission config = properties.getAdmission();
+        this.enabled = config.isEnabled();
+        this.renderLimitEnforced = enabled || Threading.VIRTUAL.isActive(environment);
+        this.maxConcurrentRenders = config.getMaxConcurrentRenders() > 0
+                ? config.getMaxConcurrentRenders()
+                : ContainerResources.availableCpus();
+        // At least one background render, even if that leaves nothing reserved
+        this.maxBackgroundRenders = Math.max(1,
+                maxConcurrentRenders - Math.max(0, config.getReservedInteractiveRenders()));
+        this.payloadBudgetKib = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, config.getMaxInFlightPayload().toBytes() / KIB));
+        this.maxQueueWait = config.getMaxQueueWait();
+        this.retryAfter = config.getRetryAfter();
+        this.renderPermits = new Semaphore(maxConcurrentRenders, true);
+        this.backgroundPermits = new Semaphore(maxBackgroundRenders, true);
+        this.payloadPermits = new Semaphore(payloadBudgetKib, true);
+
+        this.renderQueueWait = Timer.builder(METRIC_PREFIX + ".queue.wait").tag("resource", "render")
+                .register(meterRegistry);
+        this.payloadQueueWait = Timer.builder(METRIC_PREFIX + ".queue.wait").tag("resource", "payload")
+                .register(meterRegistry);
+        this.renderRejections = Counter.builder(METRIC_PREFIX + ".rejected").tag("resource", "render")
+                .register(meterRegistry);
+        this.payloadRejections = Counter.builder(METRIC_PREFIX + ".rejected").tag("resource", "payload")
+                .register(meterRegistry);
+
+        Gauge.builder(METRIC_PREFIX + ".renders.limit", () -> maxConcurrentRenders).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".renders.active", renderPermits,
+                permits -> maxConcurrentRenders - permits.availablePermits()).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".renders.queued", renderPermits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".renders.background.limit", () -> maxBackgroundRenders)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".renders.background.queued", backgroundPermits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".payload.limit.bytes", () -> payloadBudgetKib * KIB)
+                .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".payload.inflight.bytes", payloadPermits,
+                permits -> (payloadBudgetKib - permits.availablePermits()) * KIB).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".payload.queued", payloadPermits, Semaphore::getQueueLength)
+                .register(meterRegistry);
+
+        log.info("Admission control configured: enabled={}, renderLimitEnforced={}, maxConcurrentRenders={}, "
+                + "maxBackgroundRenders={}, payloadBudget={}KiB, maxQueueWait={}", enabled, renderLimitEnforced,
+                maxConcurrentRenders, maxBackgroundRenders, payloadBudgetKib, maxQueueWait);
+    }
+
+    /**
+     * Acquires a render slot. Interactive callers wait at most
+     * {@code maxQueueWait}; background callers, and all callers while
+     * admission control is disabled, wait until a slot frees up. Background
+     * callers are limited to {@link #getMaxBackgroundRenders()} slots.
+     */
+    public Permit acquireRender(RenderLane lane) throws AdmissionRejectedException, InterruptedException {
+        if (!renderLimitEnforced) {
+            return Permit.NONE;
+        }
+        if (lane == RenderLane.BACKGROUND) {
+            long start = System.nanoTime();
+            backgroundPermits.acquire();
+            Permit background = new Permit(backgroundPermits, 1, Permit.NONE);
+            try {
+                renderPermits.acquire();
+            } catch (InterruptedException e) {
+                background.close();
+                throw e;
+            }
+            renderQueueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(renderPermits, 1, background);
+        }
+        if (!enabled) {
+            long start = System.nanoTime();
+            renderPermits.acquire();
+            renderQueueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new Permit(renderPermits, 1, Permit.NONE);
+        }
+        return acquire(renderPermits, 1, renderQueueWait, renderRejections,
+                "Render capacity exhausted, please retry later");
+    }
+
+    /**
+     * Reserves {@code bytes} of the in-flight payload budget for the lifetime
+     * of a request. A negative size means the length is unknown, as for a
+     * chunked body, which could otherwise bypass the budget and is refused.
+     */
+    public Permit acquirePayload(long bytes) throws AdmissionRejectedException, PayloadLengthRequiredException,
+            InterruptedException {
+        if (!enabled || bytes == 0) {
+            return Permit.NONE;
+        }
+        if (bytes < 0) {
+            throw new PayloadLengthRequiredException("Request body must be sent with a Content-Length");
+        }
+        int kib = (int) Math.min(payloadBudgetKib, (bytes + KIB - 1) / KIB);
+        return acquire(payloadPermits, kib, payloadQueueWait, payloadRejections,
+                "Too much request data in flight, please retry later");
+    }
+
+    /**
+     * @return how long {@link #acquireRender(RenderLane)} may queue a caller of
+     *         {@code lane}, or {@code null} if it waits until a slot frees up
+     */
+    public Duration getMaxRenderQueueWait(RenderLane lane) {
+        if (!renderLimitEnforced) {
+            return Duration.ZERO;
+        }
+        return lane == RenderLane.BACKGROUND || !enabled ? null : maxQueueWait;
+    }
+
+    public int getMaxConcurrentRenders() {
+        return maxConcurrentRenders;
+    }
+
+    public int getMaxBackgroundRenders() {
+        return maxBackgroundRenders;
+    }
+
+    private Permit acquire(Semaphore semaphore, int permits, Timer waitTimer, Counter rejections, String message)
+            throws AdmissionRejectedException, InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired = semaphore.tryAcquire(permits, maxQueueWait.toNanos(), TimeUnit.NANOSECONDS);
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejections.increment();
+            log.warn("Admission rejected: {}", message);
+            throw new AdmissionRejectedException(message, retryAfter);
+        }
+        return new Permit(semaphore, permits, Permit.NONE);
+    }
+
+    /**
+     * Capacity held by a caller, together with any permit it was acquired
+     * under; released exactly once on {@link #close()}.
+     */
+    public static final class Permit implements AutoCloseable {
+        static final Permit NONE = new Permit(null, 0, null);
+
+        private final Semaphore semaphore;
+        private final int permits;
+        private final Permit outer;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore, int permits, Permit outer) {
+            this.semaphore = semaphore;
+            this.permits = permits;
+            this.outer = outer;
+        }
+
+        @Override
+        public void close() {
+            if (semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release(permits);
+                outer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tu2l.pdf.admission;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Charges each generate request's body size against the in-flight payload
+ * budget before the body is read, and returns it once the request completes.
+ * Bodies of unknown length, such as chunked ones, are refused with 411.
+ * A streamed response completes on a later async dispatch, which keeps the
+ * permit taken by the first one.
+ */
+@Slf4j
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".PERMIT";
+
+    private final AdmissionController admissionController;
+
+    public AdmissionInterceptor(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long contentLength = request.getContentLengthLong();
+        request.setAttribute(PERMIT_ATTRIBUTE, admissionController.acquirePayload(contentLength));
+        log.debug("Admitted request: uri={}, contentLength={}", request.getRequestURI(), contentLength);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdmissionController.Permit permit) {
+            permit.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.tu2l.pdf.admission;
+
+/**
+ * How a render waits for capacity.
+ */
+public enum RenderLane {
+    /**
+     * A client is waiting on the response: queue briefly, then reject.
+     */
+    INTERACTIVE,
+
+    /**
+     * Background work that has already been accepted: wait until capacity frees up.
+     */
+    BACKGROUND
+}
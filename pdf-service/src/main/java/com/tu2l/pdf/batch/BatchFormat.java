@@ -0,0 +1,73 @@
+package com.tu2l.pdf.batch;
+
+import java.io.OutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Response formats of a batch, chosen by the request's {@code Accept} header.
+ */
+public enum BatchFormat {
+    // One JSON line per item, the PDF as base64
+    NDJSON(MediaType.APPLICATION_NDJSON),
+    // One part per item, the PDF as raw bytes; failed items as a JSON part
+    MULTIPART(MediaType.MULTIPART_MIXED),
+    // One entry per PDF, followed by manifest.json describing every item
+    ZIP(MediaType.parseMediaType(BatchFormat.APPLICATION_ZIP_VALUE));
+
+    public static final String APPLICATION_ZIP_VALUE = "application/zip";
+
+    private final MediaType mediaType;
+
+    BatchFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * The first format the client accepts, by quality; NDJSON when it accepts
+     * any or sends no {@code Accept} header.
+     */
+    public static BatchFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return NDJSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return NDJSON;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            for (BatchFormat format : values()) {
+                if (type.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return NDJSON;
+    }
+
+    // Multipart responses get a fresh boundary each time
+    public MediaType newContentType() {
+        if (this == MULTIPART) {
+            return new MediaType(mediaType, Map.of("boundary", MimeTypeUtils.generateMultipartBoundaryString()));
+        }
+        return mediaType;
+    }
+
+    public BatchResultWriter newWriter(OutputStream out, MediaType contentType, JsonMapper jsonMapper) {
+        return switch (this) {
+            case NDJSON -> new NdjsonBatchWriter(out, jsonMapper);
+            case MULTIPART -> new MultipartBatchWriter(out, contentType.getParameter("boundary"), jsonMapper);
+            case ZIP -> new ZipBatchWriter(out, jsonMapper);
+        };
+    }
+}
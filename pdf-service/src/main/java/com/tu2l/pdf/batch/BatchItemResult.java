@@ -0,0 +1,41 @@
+package com.tu2l.pdf.batch;
+
+import org.springframework.core.io.ByteArrayResource;
+
+import com.tu2l.common.model.states.ResponseProcessingStatus;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.response.PDFBatchItemResponse;
+
+/**
+ * Outcome of one batch item: the rendered PDF, or why it failed.
+ */
+public record BatchItemResult(int index, String fileName, RenderedPDF pdf, String error) {
+
+    static BatchItemResult success(int index, RenderedPDF pdf) {
+        return new BatchItemResult(index, pdf.fileName(), pdf, null);
+    }
+
+    static BatchItemResult failure(int index, String fileName, String error) {
+        return new BatchItemResult(index, fileName, null, error);
+    }
+
+    public boolean succeeded() {
+        return pdf != null;
+    }
+
+    public PDFBatchItemResponse toResponse(boolean withContent) {
+        PDFBatchItemResponse response = new PDFBatchItemResponse();
+        response.setIndex(index);
+        response.setFileName(fileName);
+        if (succeeded()) {
+            response.setStatus(ResponseProcessingStatus.SUCCESS);
+            if (withContent) {
+                response.setContent(new ByteArrayResource(pdf.content()));
+            }
+        } else {
+            response.setStatus(ResponseProcessingStatus.FAILURE);
+            response.setMessage(error);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,14 @@
+package com.tu2l.pdf.batch;
+
+import java.io.IOException;
+
+/**
+ * Writes batch results to the response as they complete. Each result is
+ * flushed to the client once written.
+ */
+public interface BatchResultWriter {
+    void write(BatchItemResult result) throws IOException;
+
+    // Called once after the last result
+    void finish() throws IOException;
+}
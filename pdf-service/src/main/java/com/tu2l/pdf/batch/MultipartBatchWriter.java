@@ -0,0 +1,67 @@
+package com.tu2l.pdf.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes a {@code multipart/mixed} body: a PDF part per rendered item and a
+ * JSON part per failed one, each carrying the item's index in
+ * {@value #INDEX_HEADER}.
+ */
+class MultipartBatchWriter implements BatchResultWriter {
+    static final String INDEX_HEADER = "X-Batch-Index";
+    private static final String CRLF = "\r\n";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private final OutputStream out;
+    private final String boundary;
+    private final JsonMapper jsonMapper;
+
+    MultipartBatchWriter(OutputStream out, String boundary, JsonMapper jsonMapper) {
+        this.out = StreamUtils.nonClosing(out);
+        this.boundary = boundary;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void write(BatchItemResult result) throws IOException {
+        StringBuilder headers = new StringBuilder("--").append(boundary).append(CRLF);
+        if (result.succeeded()) {
+            byte[] content = result.pdf().content();
+            header(headers, HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE);
+            header(headers, HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                    .filename(result.fileName() + PDF_EXTENSION, StandardCharsets.UTF_8)
+                    .build()
+                    .toString());
+            header(headers, HttpHeaders.CONTENT_LENGTH, String.valueOf(content.length));
+            header(headers, INDEX_HEADER, String.valueOf(result.index()));
+            out.write(headers.append(CRLF).toString().getBytes(StandardCharsets.ISO_8859_1));
+            out.write(content);
+        } else {
+            header(headers, HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            header(headers, INDEX_HEADER, String.valueOf(result.index()));
+            out.write(headers.append(CRLF).toString().getBytes(StandardCharsets.ISO_8859_1));
+            jsonMapper.writeValue(out, result.toResponse(false));
+        }
+        out.write(CRLF.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.write(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+    }
+
+    private static void header(StringBuilder headers, String name, String value) {
+        headers.append(name).append(": ").append(value).append(CRLF);
+    }
+}
@@ -0,0 +1,30 @@
+package com.tu2l.pdf.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.springframework.util.StreamUtils;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class NdjsonBatchWriter implements BatchResultWriter {
+    private final OutputStream out;
+    private final JsonMapper jsonMapper;
+
+    NdjsonBatchWriter(OutputStream out, JsonMapper jsonMapper) {
+        this.out = StreamUtils.nonClosing(out);
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void write(BatchItemResult result) throws IOException {
+        jsonMapper.writeValue(out, result.toResponse(true));
+        out.write('\n');
+        out.flush();
+    }
+
+    @Override
+    public void finish() {
+        // Every line is complete on its own
+    }
+}
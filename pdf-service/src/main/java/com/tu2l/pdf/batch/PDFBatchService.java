@@ -0,0 +1,191 @@
+package com.tu2l.pdf.batch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.tu2l.pdf.admission.AdmissionController;
+import com.tu2l.pdf.admission.RenderLane;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.service.impl.PDFRenderer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renders the items of a batch in parallel and hands each result to a
+ * {@link BatchResultWriter} as soon as it completes, in completion order.
+ * <p>
+ * Items run on a pool of {@code pdf.batch.concurrency} threads shared by all
+ * batches, and each batch keeps at most that many of its items submitted, so
+ * concurrent batches take turns and only a few rendered PDFs are held before
+ * being written. Renders go through the background admission lane: an
+ * accepted batch waits for render slots rather than being rejected, and the
+ * slots reserved for interactive requests stay free.
+ * <p>
+ * An item that is invalid or fails to render is reported as a failed result;
+ * the rest of the batch carries on. If the response cannot be written, the
+ * items still running are cancelled.
+ */
+@Slf4j
+@Service
+public class PDFBatchService {
+    private static final String THREAD_NAME_PREFIX = "pdf-batch-";
+
+    private final PDFRenderer renderer;
+    private final Validator validator;
+    private final int maxItems;
+    private final int concurrency;
+    private final Duration timeout;
+    private final ExecutorService executor;
+    private final Counter succeeded;
+    private final Counter failed;
+
+    public PDFBatchService(PDFRenderer renderer, Validator validator, PDFServiceProperties properties,
+                           AdmissionController admissionController, MeterRegistry meterRegistry,
+                           Environment environment) {
+        PDFServiceProperties.Batch settings = properties.getBatch();
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.renderer = renderer;
+        this.validator = validator;
+        this.maxItems = settings.getMaxItems();
+        this.concurrency = settings.getConcurrency() > 0 ? settings.getConcurrency()
+                : admissionController.getMaxBackgroundRenders() * (virtualThreads ? 2 : 1);
+        this.timeout = settings.getTimeout();
+        this.executor = Executors.newFixedThreadPool(concurrency, virtualThreads
+                ? new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory()
+                : platformThreadFactory());
+        this.succeeded = Counter.builder("pdf.batch.items").tag("result", "succeeded").register(meterRegistry);
+        this.failed = Counter.builder("pdf.batch.items").tag("result", "failed").register(meterRegistry);
+        log.info("Batch rendering configured: concurrency={}, maxItems={}, timeout={}", concurrency, maxItems,
+                timeout);
+    }
+
+    /**
+     * Rejects batches over {@code pdf.batch.max-items}; called before the
+     * response starts.
+     */
+    public void checkSize(List<GeneratePDFRequest> items) throws PDFException {
+        if (items.size() > maxItems) {
+            throw new PDFException("Batch has " + items.size() + " items, at most " + maxItems + " are allowed");
+        }
+    }
+
+    /**
+     * How long a batch response may take; longer than the default for async
+     * requests, since the whole batch is written within it.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void render(List<GeneratePDFRequest> items, BatchResultWriter writer) throws IOException {
+        CompletionService<BatchItemResult> completion = new ExecutorCompletionService<>(executor);
+        List<Future<BatchItemResult>> futures = new ArrayList<>(items.size());
+        long start = System.nanoTime();
+        int failures = 0;
+        try {
+            while (futures.size() < Math.min(concurrency, items.size())) {
+                submit(completion, futures, items);
+            }
+            for (int done = 0; done < items.size(); done++) {
+                BatchItemResult result = completion.take().get();
+                if (futures.size() < items.size()) {
+                    submit(completion, futures, items);
+                }
+                if (!result.succeeded()) {
+                    failures++;
+                }
+                writer.write(result);
+            }
+            writer.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch was interrupted");
+        } catch (ExecutionException e) {
+            // Items report their exceptions as results; only errors end up here
+            throw new IllegalStateException("Batch item failed unexpectedly", e.getCause());
+        } finally {
+            // Stops items still queued or rendering once the client is gone
+            futures.forEach(future -> future.cancel(true));
+        }
+        log.info("Batch completed: items={}, failed={}, duration={}ms", items.size(), failures,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(CompletionService<BatchItemResult> completion, List<Future<BatchItemResult>> futures,
+                        List<GeneratePDFRequest> items) {
+        int index = futures.size();
+        GeneratePDFRequest item = items.get(index);
+        futures.add(completion.submit(() -> renderItem(index, item)));
+    }
+
+    private BatchItemResult renderItem(int index, GeneratePDFRequest item) {
+        String fileName = item == null ? null : item.getFileName();
+        String invalid = item == null ? "Item cannot be null" : validate(item);
+        if (invalid != null) {
+            log.warn("Batch item rejected: index={}, error={}", index, invalid);
+            failed.increment();
+            return BatchItemResult.failure(index, fileName, invalid);
+        }
+        try {
+            RenderedPDF pdf = renderer.render(item, RenderLane.BACKGROUND);
+            succeeded.increment();
+            return BatchItemResult.success(index, pdf);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return BatchItemResult.failure(index, fileName, "Batch was cancelled");
+        } catch (Exception e) {
+            log.warn("Batch item failed: index={}, fileName={}, error={}", index, fileName, e.getMessage());
+            failed.increment();
+            return BatchItemResult.failure(index, fileName,
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    // Same form as the handler's message for an invalid single request
+    private String validate(GeneratePDFRequest item) {
+        Set<ConstraintViolation<GeneratePDFRequest>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+    }
+}
@@ -0,0 +1,85 @@
+package com.tu2l.pdf.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.util.StreamUtils;
+
+import com.tu2l.common.model.states.ResponseProcessingStatus;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Writes a zip archive with an entry per rendered PDF, named after the item's
+ * file name, and a closing {@value #MANIFEST} that lists every item with its
+ * entry or error. PDFs are stored rather than deflated: their streams are
+ * compressed already.
+ */
+class ZipBatchWriter implements BatchResultWriter {
+    static final String MANIFEST = "manifest.json";
+    private static final String PDF_EXTENSION = ".pdf";
+
+    record ManifestItem(int index, String fileName, String entry, ResponseProcessingStatus status,
+                        String message) {
+    }
+
+    private final ZipOutputStream zip;
+    private final JsonMapper jsonMapper;
+    private final Set<String> entryNames = new HashSet<>();
+    private final List<ManifestItem> manifest = new ArrayList<>();
+
+    ZipBatchWriter(OutputStream out, JsonMapper jsonMapper) {
+        this.zip = new ZipOutputStream(StreamUtils.nonClosing(out));
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public void write(BatchItemResult result) throws IOException {
+        if (!result.succeeded()) {
+            manifest.add(new ManifestItem(result.index(), result.fileName(), null, ResponseProcessingStatus.FAILURE,
+                    result.error()));
+            return;
+        }
+        byte[] content = result.pdf().content();
+        String name = entryName(result.fileName());
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+        zip.flush();
+        manifest.add(new ManifestItem(result.index(), result.fileName(), name, ResponseProcessingStatus.SUCCESS,
+                null));
+    }
+
+    @Override
+    public void finish() throws IOException {
+        zip.putNextEntry(new ZipEntry(MANIFEST));
+        jsonMapper.writeValue(StreamUtils.nonClosing(zip), manifest);
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    // File names may repeat within a batch and may contain path separators
+    private String entryName(String fileName) {
+        String base = fileName.replaceAll("[/\\\\\\p{Cntrl}]", "_");
+        String name = base + PDF_EXTENSION;
+        for (int n = 2; !entryNames.add(name); n++) {
+            name = base + " (" + n + ")" + PDF_EXTENSION;
+        }
+        return name;
+    }
+}
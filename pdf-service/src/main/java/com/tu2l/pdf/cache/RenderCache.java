@@ -0,0 +1,245 @@
+package com.tu2l.pdf.cache;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tu2l.pdf.config.PDFServiceProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Two-tier cache of rendered PDFs keyed by {@link RenderKeyGenerator} keys.
+ * <p>
+ * The memory tier is bounded by total PDF bytes and uses Caffeine's
+ * W-TinyLFU eviction. The optional disk tier stores one file per key, sharded
+ * by the first two hex characters, and trims the least recently used files when
+ * it grows past its budget. Disk hits are promoted back into memory.
+ */
+@Slf4j
+@Component
+public class RenderCache {
+    private static final String METRIC_PREFIX = "pdf.render.cache";
+    private static final String FILE_EXTENSION = ".pdf";
+    private static final double DISK_TRIM_TARGET = 0.9;
+
+    private final boolean enabled;
+    private final Cache<String, byte[]> memory;
+    private final Path diskDirectory;
+    private final long diskMaxBytes;
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+    private final Counter memoryEvictions;
+    private final Counter diskEvictions;
+
+    public RenderCache(PDFServiceProperties properties, MeterRegistry meterRegistry) {
+        PDFServiceProperties.Cache config = properties.getCache();
+        this.enabled = config.isEnabled();
+
+        this.memoryHits = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "hit").tag("tier", "memory")
+                .register(meterRegistry);
+        this.diskHits = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "hit").tag("tier", "disk")
+                .register(meterRegistry);
+        this.misses = Counter.builder(METRIC_PREFIX + ".requests").tag("result", "miss").tag("tier", "none")
+                .register(meterRegistry);
+        this.memoryEvictions = Counter.builder(METRIC_PREFIX + ".evictions").tag("tier", "memory")
+                .register(meterRegistry);
+        this.diskEvictions = Counter.builder(METRIC_PREFIX + ".evictions").tag("tier", "disk")
+                .register(meterRegistry);
+
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(config.getMemoryMaxSize().toBytes())
+                .weigher((String key, byte[] pdf) -> pdf.length)
+                .evictionListener((key, pdf, cause) -> memoryEvictions.increment())
+                .build();
+        Gauge.builder(METRIC_PREFIX + ".size.bytes", memory, RenderCache::weightedSize).tag("tier", "memory")
+                .register(meterRegistry);
+
+        PDFServiceProperties.Disk disk = config.getDisk();
+        this.diskDirectory = enabled && disk.isEnabled() ? initDiskDirectory(Path.of(disk.getDirectory())) : null;
+        this.diskMaxBytes = disk.getMaxSize().toBytes();
+        Gauge.builder(METRIC_PREFIX + ".size.bytes", diskBytes, AtomicLong::get).tag("tier", "disk")
+                .register(meterRegistry);
+
+        log.info("Render cache configured: enabled={}, memoryMaxSize={}, diskDirectory={}", enabled,
+                config.getMemoryMaxSize(), diskDirectory);
+    }
+
+    public Optional<byte[]> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        byte[] pdf = memory.getIfPresent(key);
+        if (pdf != null) {
+            memoryHits.increment();
+            return Optional.of(pdf);
+        }
+
+        pdf = readFromDisk(key);
+        if (pdf != null) {
+            diskHits.increment();
+            memory.put(key, pdf);
+            return Optional.of(pdf);
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public void put(String key, byte[] pdf) {
+        if (!enabled || pdf == null || pdf.length == 0) {
+            return;
+        }
+        memory.put(key, pdf);
+        writeToDisk(key, pdf);
+    }
+
+    private static double weightedSize(Cache<String, byte[]> cache) {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    private Path initDiskDirectory(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.walk(directory)) {
+                diskBytes.set(files.filter(Files::isRegularFile).mapToLong(this::sizeOf).sum());
+            }
+            return directory;
+        } catch (IOException e) {
+            log.warn("Disabling disk render cache, directory {} is not usable: {}", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path pathFor(String key) {
+        return diskDirectory.resolve(key.substring(0, 2)).resolve(key + FILE_EXTENSION);
+    }
+
+    private byte[] readFromDisk(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = pathFor(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            // Last-modified time doubles as the access time used when trimming
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return pdf;
+        } catch (IOException e) {
+            log.warn("Failed to read cached render {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, byte[] pdf) {
+        if (diskDirectory == null) {
+            return;
+        }
+        Path file = pathFor(key);
+        if (Files.exists(file)) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), key, ".tmp");
+            Files.write(temp, pdf);
+            // Linking fails if the file exists, unlike a rename, so of concurrent
+            // writers of one key only the one that created the entry counts it
+            Files.createLink(file, temp);
+            if (diskBytes.addAndGet(pdf.length) > diskMaxBytes) {
+                trimDisk();
+            }
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Render cached on disk concurrently: {}", file);
+        } catch (IOException e) {
+            log.warn("Failed to write cached render {}: {}", file, e.getMessage());
+        } finally {
+            deleteTemp(temp);
+        }
+    }
+
+    private void deleteTemp(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary cache file {}: {}", temp, e.getMessage());
+        }
+    }
+
+    private void trimDisk() {
+        trimLock.lock();
+        try {
+            trimDiskLocked();
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private void trimDiskLocked() {
+        long target = (long) (diskMaxBytes * DISK_TRIM_TARGET);
+        if (diskBytes.get() <= target) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(diskDirectory)) {
+            List<Path> oldestFirst = files
+                    .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(FILE_EXTENSION))
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .toList();
+            for (Path file : oldestFirst) {
+                if (diskBytes.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(file);
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                    diskEvictions.increment();
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to trim disk render cache: {}", e.getMessage());
+        }
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0L);
+        }
+    }
+}
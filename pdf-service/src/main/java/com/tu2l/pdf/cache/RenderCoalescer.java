@@ -0,0 +1,110 @@
+package com.tu2l.pdf.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.exception.AdmissionRejectedException;
+import com.tu2l.pdf.exception.PDFRenderTimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single-flight renders: while a render for a {@link RenderKeyGenerator} key is
+ * in progress, further requests for the same key wait for it and receive its
+ * result, or its exception, instead of rendering again. Only renders within
+ * this instance are shared, and each waiting request keeps its own deadline.
+ */
+@Slf4j
+@Component
+public class RenderCoalescer {
+    private final Map<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public RenderCoalescer(MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("pdf.render.coalesced")
+                .description("Render requests served by a render already in progress")
+                .register(meterRegistry);
+        Gauge.builder("pdf.render.in.flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code render} unless a render for {@code key} is already in
+     * progress, in which case its outcome is awaited for at most
+     * {@code maxWait}, the time this request would have been allowed to queue
+     * and render on its own, or for as long as it takes when {@code null}. The
+     * render should publish its result, for example to the render cache, before
+     * it returns, so that requests arriving just after it completes find it
+     * there.
+     * <p>
+     * A render rejected by admission control failed for its own caller's lane
+     * and queue position, so requests waiting for it start a render of their
+     * own instead of sharing the rejection.
+     *
+     * @throws PDFRenderTimeoutException if the awaited render does not finish
+     *                                   within {@code maxWait}
+     */
+    public byte[] render(String key, Duration maxWait, Callable<byte[]> render) throws Exception {
+        long deadline = maxWait != null ? System.nanoTime() + maxWait.toNanos() : 0;
+        boolean joined = false;
+        while (true) {
+            CompletableFuture<byte[]> own = new CompletableFuture<>();
+            CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, own);
+            if (running == null) {
+                return lead(key, own, render);
+            }
+            if (!joined) {
+                joined = true;
+                coalesced.increment();
+            }
+            log.debug("Render coalesced with one in progress: key={}", key);
+            try {
+                return await(running, maxWait, deadline);
+            } catch (AdmissionRejectedException e) {
+                inFlight.remove(key, running);
+                log.debug("Coalesced render was rejected by admission control, rendering again: key={}", key);
+            }
+        }
+    }
+
+    private byte[] lead(String key, CompletableFuture<byte[]> own, Callable<byte[]> render) throws Exception {
+        try {
+            byte[] pdf = render.call();
+            own.complete(pdf);
+            return pdf;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> running, Duration maxWait, long deadline)
+            throws Exception {
+        try {
+            if (maxWait == null) {
+                return running.get();
+            }
+            return running.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new PDFRenderTimeoutException("PDF rendering exceeded the deadline of " + maxWait.toMillis()
+                    + " ms while waiting for an identical render in progress");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
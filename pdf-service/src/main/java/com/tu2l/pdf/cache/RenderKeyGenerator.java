@@ -0,0 +1,254 @@
+package com.tu2l.pdf.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+
+/**
+ * Computes content-addressed keys for rendered PDFs: a SHA-256 over the
+ * normalized HTML, the layout parameters and the rendering engine.
+ * <p>
+ * Normalization only feeds the digest, it never changes what is rendered. It
+ * folds differences a browser engine ignores: CRLF line endings, runs of
+ * whitespace in text and between attributes, spaces around {@code =}, and the
+ * case of tag and attribute names. Content of {@code pre}, {@code textarea},
+ * {@code script} and {@code style} elements and all attribute values are kept
+ * verbatim. Documents that rely on {@code white-space: pre} styling of other
+ * elements may therefore share a key with a whitespace-only variant.
+ */
+public final class RenderKeyGenerator {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String[] RAW_TEXT_ELEMENTS = { "pre", "textarea", "script", "style" };
+
+    private enum State {
+        TEXT, TAG_NAME, TAG, VALUE_START, UNQUOTED_VALUE, QUOTED_VALUE, RAW_TEXT
+    }
+
+    private final MessageDigest digest;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+
+    private State state = State.TEXT;
+    private boolean pendingSpace;
+    private boolean previousWasCarriageReturn;
+    private char quote;
+    private final StringBuilder tagName = new StringBuilder();
+    private String rawTextEnd;
+    private int rawTextMatched;
+
+    private RenderKeyGenerator() {
+        try {
+            this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+
+    public static String keyFor(CharSequence html, LayoutParams layoutParams, String engine) {
+        RenderKeyGenerator generator = new RenderKeyGenerator();
+        for (int i = 0; i < html.length(); i++) {
+            generator.accept(html.charAt(i));
+        }
+        return generator.finish(layoutParams, engine);
+    }
+
+    public static String keyFor(Reader html, LayoutParams layoutParams, String engine) throws IOException {
+        RenderKeyGenerator generator = new RenderKeyGenerator();
+        char[] chunk = new char[4096];
+        int read;
+        while ((read = html.read(chunk)) != -1) {
+            for (int i = 0; i < read; i++) {
+                generator.accept(chunk[i]);
+            }
+        }
+        return generator.finish(layoutParams, engine);
+    }
+
+    private String finish(LayoutParams layoutParams, String engine) {
+        pendingSpace = false;
+        emit('\u0000');
+        emitAll(String.valueOf(engine));
+        emit('\u0000');
+        emitAll(layoutKey(layoutParams));
+        flush();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String layoutKey(LayoutParams layoutParams) {
+        if (layoutParams == null) {
+            return "";
+        }
+        return layoutParams.getPageSize() + "|" + layoutParams.getOrientation()
+                + "|" + layoutParams.getMarginTop() + "|" + layoutParams.getMarginRight()
+                + "|" + layoutParams.getMarginBottom() + "|" + layoutParams.getMarginLeft()
+                + "|" + layoutParams.isIncludeHeader();
+    }
+
+    private void accept(char c) {
+        if (c == '\n' && previousWasCarriageReturn) {
+            previousWasCarriageReturn = false;
+            return;
+        }
+        previousWasCarriageReturn = c == '\r';
+        if (previousWasCarriageReturn) {
+            c = '\n';
+        }
+
+        switch (state) {
+            case TEXT -> acceptText(c);
+            case TAG_NAME -> acceptTagName(c);
+            case TAG -> acceptTag(c);
+            case VALUE_START -> acceptValueStart(c);
+            case UNQUOTED_VALUE -> acceptUnquotedValue(c);
+            case QUOTED_VALUE -> {
+                emit(c);
+                if (c == quote) {
+                    state = State.TAG;
+                }
+            }
+            case RAW_TEXT -> acceptRawText(c);
+        }
+    }
+
+    private void acceptText(char c) {
+        if (Character.isWhitespace(c)) {
+            pendingSpace = true;
+            return;
+        }
+        flushSpace();
+        emit(c);
+        if (c == '<') {
+            tagName.setLength(0);
+            state = State.TAG_NAME;
+        }
+    }
+
+    private void acceptTagName(char c) {
+        if (tagName.length() == 0 && !Character.isLetter(c) && c != '/' && c != '!' && c != '?') {
+            // A bare '<' in text, not the start of a tag
+            state = State.TEXT;
+            acceptText(c);
+            return;
+        }
+        if (Character.isWhitespace(c)) {
+            pendingSpace = true;
+            state = State.TAG;
+            return;
+        }
+        if (c == '>') {
+            closeTag();
+            return;
+        }
+        char lower = Character.toLowerCase(c);
+        tagName.append(lower);
+        emit(lower);
+    }
+
+    private void acceptTag(char c) {
+        if (Character.isWhitespace(c)) {
+            pendingSpace = true;
+            return;
+        }
+        if (c == '>') {
+            closeTag();
+            return;
+        }
+        if (c == '=') {
+            pendingSpace = false;
+            emit(c);
+            state = State.VALUE_START;
+            return;
+        }
+        flushSpace();
+        emit(Character.toLowerCase(c));
+    }
+
+    private void acceptValueStart(char c) {
+        if (Character.isWhitespace(c)) {
+            // Whitespace between '=' and the value carries no meaning
+            return;
+        }
+        if (c == '>') {
+            closeTag();
+            return;
+        }
+        emit(c);
+        if (c == '"' || c == '\'') {
+            quote = c;
+            state = State.QUOTED_VALUE;
+        } else {
+            state = State.UNQUOTED_VALUE;
+        }
+    }
+
+    private void acceptUnquotedValue(char c) {
+        if (Character.isWhitespace(c)) {
+            pendingSpace = true;
+            state = State.TAG;
+            return;
+        }
+        if (c == '>') {
+            closeTag();
+            return;
+        }
+        emit(c);
+    }
+
+    private void acceptRawText(char c) {
+        emit(c);
+        if (Character.toLowerCase(c) == rawTextEnd.charAt(rawTextMatched)) {
+            rawTextMatched++;
+            if (rawTextMatched == rawTextEnd.length()) {
+                tagName.setLength(0);
+                state = State.TAG;
+            }
+        } else {
+            rawTextMatched = Character.toLowerCase(c) == rawTextEnd.charAt(0) ? 1 : 0;
+        }
+    }
+
+    private void closeTag() {
+        pendingSpace = false;
+        emit('>');
+        state = State.TEXT;
+        String name = tagName.toString();
+        for (String element : RAW_TEXT_ELEMENTS) {
+            if (element.equals(name)) {
+                rawTextEnd = "</" + element;
+                rawTextMatched = 0;
+                state = State.RAW_TEXT;
+                return;
+            }
+        }
+    }
+
+    private void flushSpace() {
+        if (pendingSpace) {
+            pendingSpace = false;
+            emit(' ');
+        }
+    }
+
+    private void emit(char c) {
+        if (position + 2 > buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) (c >>> 8);
+        buffer[position++] = (byte) c;
+    }
+
+    private void emitAll(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            emit(value.charAt(i));
+        }
+    }
+
+    private void flush() {
+        digest.update(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -0,0 +1,208 @@
+package com.tu2l.pdf.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.tu2l.pdf.storage.PDFCodec;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "pdf")
+public class PDFServiceProperties {
+    private Generator generator = new Generator();
+    private Cache cache = new Cache();
+    private Admission admission = new Admission();
+    private Storage storage = new Storage();
+    private Jobs jobs = new Jobs();
+    private Batch batch = new Batch();
+    private Events events = new Events();
+    private Webhooks webhooks = new Webhooks();
+    private Idempotency idempotency = new Idempotency();
+
+    @Data
+    public static class Generator {
+        // Bean name of the PDFGenerator used for rendering
+        private String engine = "wkhtmlToPdfGenerator";
+        private Duration renderTimeout = Duration.ofSeconds(30);
+        // Upper bound for per-request renderTimeoutSeconds overrides
+        private Duration maxRenderTimeout = Duration.ofMinutes(2);
+        private Wkhtmltopdf wkhtmltopdf = new Wkhtmltopdf();
+        private Openhtmltopdf openhtmltopdf = new Openhtmltopdf();
+    }
+
+    @Data
+    public static class Wkhtmltopdf {
+        private String binary = "wkhtmltopdf";
+        // Stream HTML via stdin and PDF via stdout instead of temp files
+        private boolean piped = true;
+        private Pool pool = new Pool();
+    }
+
+    @Data
+    public static class Openhtmltopdf {
+        // Optional directory of .ttf/.otf files registered with the renderer
+        private String fontDirectory;
+    }
+
+    @Data
+    public static class Pool {
+        // 0 means "derive from the container CPU quota"
+        private int size = 0;
+        private int maxJobsPerWorker = 200;
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private DataSize memoryMaxSize = DataSize.ofMegabytes(64);
+        private Disk disk = new Disk();
+    }
+
+    @Data
+    public static class Disk {
+        private boolean enabled = false;
+        private String directory = "./etc/cache/renders";
+        private DataSize maxSize = DataSize.ofGigabytes(1);
+    }
+
+    @Data
+    public static class Admission {
+        private boolean enabled = true;
+        // 0 means "derive from the container CPU quota"
+        private int maxConcurrentRenders = 0;
+        // Render slots background jobs cannot take, keeping interactive latency flat during backlogs
+        private int reservedInteractiveRenders = 1;
+        private DataSize maxInFlightPayload = DataSize.ofMegabytes(256);
+        private Duration maxQueueWait = Duration.ofSeconds(2);
+        private Duration retryAfter = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Storage {
+        // database | filesystem
+        private String type = "database";
+        private Filesystem filesystem = new Filesystem();
+        private Compression compression = new Compression();
+    }
+
+    @Data
+    public static class Compression {
+        private PDFCodec codec = PDFCodec.ZSTD;
+        // Codec-specific; the codec's default when unset
+        private Integer level;
+
+        public int resolveLevel() {
+            return level != null ? level : codec.getDefaultLevel();
+        }
+    }
+
+    @Data
+    public static class Filesystem {
+        private String directory = "./etc/pdf-store";
+    }
+
+    @Data
+    public static class Jobs {
+        // Run queued background renders on this instance; jobs are still enqueued when false
+        private boolean enabled = true;
+        // 0 means "the background render limit", doubled when running on virtual threads
+        private int concurrency = 0;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // Renewed while the job runs; an expired lease lets another instance take the job over
+        private Duration leaseDuration = Duration.ofMinutes(1);
+        private int maxAttempts = 3;
+        // Doubled per attempt, with jitter, up to maxRetryBackoff
+        private Duration retryBackoff = Duration.ofSeconds(10);
+        private Duration maxRetryBackoff = Duration.ofMinutes(5);
+        private FairShare fairShare = new FairShare();
+        private Cost cost = new Cost();
+    }
+
+    @Data
+    public static class Cost {
+        // Estimate each job's render time at submission and serve cheaper jobs first
+        private boolean enabled = true;
+        // Without fair share: a job estimated at 1s is ordered as if submitted agingFactor seconds later.
+        // With fair share: a job yields to cheaper jobs of its user for at most agingFactor times its share
+        private int agingFactor = 10;
+    }
+
+    @Data
+    public static class FairShare {
+        // Claim jobs in weighted fair order across users instead of oldest first
+        private boolean enabled = true;
+        // Relative share of a user's jobs; by X-User-Role of the submitting request
+        private int defaultWeight = 1;
+        private Map<String, Integer> roleWeights = new HashMap<>();
+    }
+
+    @Data
+    public static class Batch {
+        // Larger batch requests are rejected before any item renders
+        private int maxItems = 1000;
+        // Items rendered at once across all batches; 0 means "the background render limit",
+        // doubled when running on virtual threads
+        private int concurrency = 0;
+        // How long a batch response may stream before it is cut off
+        private Duration timeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Events {
+        // How long a job event stream stays open
+        private Duration timeout = Duration.ofMinutes(30);
+        // Comment sent on idle streams so that proxies keep them open
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+        // How often watched PDFs are checked for changes made by other instances
+        private Duration sweepInterval = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Webhooks {
+        // Deliver completion callbacks; callback URLs of requests are ignored when false
+        private boolean enabled = true;
+        private Duration pollInterval = Duration.ofSeconds(1);
+        // Events for the same callback URL sent in one request, as a JSON array
+        private int batchSize = 50;
+        private int maxDeliveriesPerPoll = 500;
+        // Hosts delivered to in parallel
+        private int concurrency = 4;
+        private int maxAttempts = 8;
+        private Duration retryBackoff = Duration.ofSeconds(10);
+        private Duration maxRetryBackoff = Duration.ofHours(1);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(10);
+        // Claimed deliveries not reported back within this time are sent again
+        private Duration leaseDuration = Duration.ofMinutes(2);
+        // HMAC-SHA256 key for the X-PDF-Signature header; unsigned when empty
+        private String signingSecret;
+        // Callback hosts accepted; any host with public addresses when empty
+        private List<String> allowedHosts = new ArrayList<>();
+        // Accept callbacks to loopback, private and link-local addresses, e.g. for local receivers
+        private boolean allowPrivateAddresses = false;
+    }
+
+    @Data
+    public static class Idempotency {
+        // Honour Idempotency-Key headers; the header is ignored when false
+        private boolean enabled = true;
+        // How long a completed request is replayed for its key
+        private Duration ttl = Duration.ofHours(24);
+        // A running request holding a key longer than this, e.g. after a crash, loses it
+        private Duration leaseDuration = Duration.ofMinutes(5);
+        // How long a replay waits for the original request before answering 409
+        private Duration maxWait = Duration.ofMinutes(2);
+        // How often a replay checks on an original request running on another instance
+        private Duration pollInterval = Duration.ofMillis(200);
+        // Completed keys kept in memory; older ones are read from the database
+        private long memoryMaxEntries = 100_000;
+        private Duration purgeInterval = Duration.ofMinutes(10);
+    }
+}
\ No newline at end of file
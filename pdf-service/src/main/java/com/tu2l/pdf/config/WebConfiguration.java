@@ -0,0 +1,21 @@
+package com.tu2l.pdf.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.tu2l.pdf.admission.AdmissionInterceptor;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+    private final AdmissionInterceptor admissionInterceptor;
+
+    public WebConfiguration(AdmissionInterceptor admissionInterceptor) {
+        this.admissionInterceptor = admissionInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/generate", "/generate/**");
+    }
+}
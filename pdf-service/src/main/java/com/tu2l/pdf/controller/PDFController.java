@@ -1,29 +1,71 @@
 package com.tu2l.pdf.controller;
 
+import java.io.IOException;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.tu2l.common.constant.CommonConstants;
 import com.tu2l.common.model.base.BaseResponse;
+import com.tu2l.pdf.batch.BatchFormat;
+import com.tu2l.pdf.batch.PDFBatchService;
+import com.tu2l.pdf.exception.PDFNotFoundException;
+import com.tu2l.pdf.idempotency.IdempotencyService;
+import com.tu2l.pdf.job.PDFJobEventNotifier;
+import com.tu2l.pdf.model.projection.PDFDownloadView;
 import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+import com.tu2l.pdf.model.request.GeneratePDFBatchRequest;
 import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.model.response.GeneratePDFResponse;
 import com.tu2l.pdf.service.PDFService;
 
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
 
 @Slf4j
 @RestController
 @RequestMapping("/")
 public class PDFController {
+    private static final String PDF_EXTENSION = ".pdf";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
     private final PDFService pdfService;
+    private final PDFJobEventNotifier jobEventNotifier;
+    private final JsonMapper jsonMapper;
+    private final IdempotencyService idempotencyService;
+    private final PDFBatchService batchService;
 
-    public PDFController(PDFService pdfService) {
+    public PDFController(PDFService pdfService, PDFJobEventNotifier jobEventNotifier, JsonMapper jsonMapper,
+                         IdempotencyService idempotencyService, PDFBatchService batchService) {
         this.pdfService = pdfService;
+        this.jobEventNotifier = jobEventNotifier;
+        this.jsonMapper = jsonMapper;
+        this.idempotencyService = idempotencyService;
+        this.batchService = batchService;
     }
 
     @PostMapping("/generate")
@@ -35,31 +77,174 @@ public class PDFController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Renders and saves a PDF. Retries sent with the same
+     * {@code Idempotency-Key} return the saved PDF instead of rendering again.
+     */
     @PostMapping("/generate/save")
-    public ResponseEntity<BaseResponse> generateAndSave(@Valid @RequestBody GenerateAndSavePDFRequest request)
-            throws Exception {
+    public ResponseEntity<BaseResponse> generateAndSave(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody GenerateAndSavePDFRequest request) throws Exception {
         log.info("Received request to generate and save PDF: fileName={}", request.getFileName());
 
-        BaseResponse response = pdfService.generateAndSave(request);
+        BaseResponse response = idempotencyService.execute(IdempotencyService.Operation.SAVE, idempotencyKey,
+                request, () -> pdfService.generateAndSave(request), pdfService::getGeneratedPDFById);
         log.info("PDF generation and save completed successfully: fileName={}, status={}",
                 request.getFileName(), response.getStatus());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Queues a PDF for rendering. The gateway's {@code X-User-Role} sets the
+     * job's share of the render queue. Retries sent with the same
+     * {@code Idempotency-Key} return the queued PDF's id and current status.
+     */
     @PostMapping("/generate/async")
-    public ResponseEntity<BaseResponse> generateAndSaveAsync(@Valid @RequestBody GenerateAndSavePDFRequest request)
-            throws Exception {
+    public ResponseEntity<BaseResponse> generateAndSaveAsync(
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestHeader(name = CommonConstants.Headers.X_USER_ROLE, required = false) String userRole,
+            @Valid @RequestBody GenerateAndSavePDFRequest request) throws Exception {
         log.info("Received async request to generate and save PDF: fileName={}", request.getFileName());
-        BaseResponse response = pdfService.generateAsync(request);
+        BaseResponse response = idempotencyService.execute(IdempotencyService.Operation.ASYNC, idempotencyKey,
+                request, () -> pdfService.generateAsync(request, userRole), pdfService::getGeneratedPDFMetadataById);
         log.info("Asynchronous PDF generation and save initiated: fileName={}, status={}, fileId={}",
                 request.getFileName(), response.getStatus(), response.getId());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Renders many PDFs without saving them and streams each result as soon
+     * as it is ready, in completion order: as NDJSON by default,
+     * {@code multipart/mixed} or a zip archive, by the {@code Accept} header.
+     * Items that fail are reported in the stream and do not stop the batch.
+     */
+    @PostMapping(value = "/generate/batch", produces = { MediaType.APPLICATION_NDJSON_VALUE,
+            MediaType.MULTIPART_MIXED_VALUE, BatchFormat.APPLICATION_ZIP_VALUE })
+    public ResponseEntity<StreamingResponseBody> generateBatch(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+            @Valid @RequestBody GeneratePDFBatchRequest request, WebRequest webRequest) throws Exception {
+        batchService.checkSize(request.getItems());
+        BatchFormat format = BatchFormat.negotiate(accept);
+        log.info("Received batch request to generate PDFs: items={}, format={}", request.getItems().size(), format);
+
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest()
+                .setTimeout(batchService.getTimeout().toMillis());
+        MediaType contentType = format.newContentType();
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .body(out -> batchService.render(request.getItems(),
+                        format.newWriter(out, contentType, jsonMapper)));
+    }
+
+    @GetMapping(value = "/jobs/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJobEvents(@PathVariable("id") long id) throws Exception {
+        log.info("Received request to stream job events: pdfId={}", id);
+        try {
+            return ResponseEntity.ok(jobEventNotifier.subscribe(id));
+        } catch (PDFNotFoundException e) {
+            // Answered here: an event-stream client accepts no JSON error body,
+            // but a bare 404 stops EventSource from reconnecting
+            log.warn("Job events requested for unknown PDF: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @GetMapping(value = "/users/{userId}/jobs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUserJobEvents(@PathVariable("userId") String userId) {
+        log.info("Received request to stream job events for user: userId={}", userId);
+        return jobEventNotifier.subscribeUser(userId);
+    }
+
+    /**
+     * Lists a user's PDFs, newest first, without their content. Pass the
+     * returned {@code nextCursor} to get the following page.
+     */
+    @GetMapping("/users/{userId}/pdfs")
+    public ResponseEntity<BaseResponse> listPdfs(@PathVariable("userId") String userId,
+                                                 @RequestParam(name = "cursor", required = false) String cursor,
+                                                 @RequestParam(name = "limit", defaultValue = "20") int limit)
+            throws Exception {
+        log.info("Received request to list PDFs: userId={}, limit={}", userId, limit);
+        return ResponseEntity.ok(pdfService.listPDFs(userId, cursor, limit));
+    }
+
+    /**
+     * Returns the stored PDF as base64 in the usual JSON response. The body is
+     * written after the handler returns, off the request thread, and the
+     * content is encoded as it is read from the store.
+     */
     @GetMapping("/get/id/{id}")
-    public ResponseEntity<BaseResponse> getPdfById(@PathVariable("id") long id) throws Exception {
+    public ResponseEntity<StreamingResponseBody> getPdfById(@PathVariable("id") long id) throws Exception {
         log.info("Received request to get PDF by id: pdfId={}", id);
-        return ResponseEntity.ok(pdfService.getGeneratedPDFById(id));
+        GeneratePDFResponse response = pdfService.getGeneratedPDFById(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> jsonMapper.writeValue(StreamUtils.nonClosing(out), response));
+    }
+
+    @DeleteMapping("/delete/id/{id}")
+    public ResponseEntity<BaseResponse> deletePdfById(@PathVariable("id") long id) throws Exception {
+        log.info("Received request to delete PDF by id: pdfId={}", id);
+        return ResponseEntity.ok(pdfService.deletePDF(id));
+    }
+
+    /**
+     * Serves the stored PDF as raw bytes. The strong ETag is the SHA-256 of the
+     * content, so a matching {@code If-None-Match} is answered with 304 before
+     * the content is loaded. Returning a {@link Resource} lets Spring answer
+     * {@code Range} requests with 206 partial content. Full downloads of
+     * file-backed content are handed to the container's sendfile support when
+     * available, so the bytes go from the page cache to the socket without
+     * passing through the heap.
+     */
+    @GetMapping("/download/{id}")
+    public ResponseEntity<Resource> download(@PathVariable("id") long id, WebRequest webRequest) throws Exception {
+        log.info("Received request to download PDF: pdfId={}", id);
+        PDFDownloadView view = pdfService.getPDFDownloadView(id);
+        String eTag = "\"" + view.getContentHash() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            log.debug("PDF not modified, skipping content load: pdfId={}", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        Resource content = pdfService.getPDFContent(view.getContentHash());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                        .filename(downloadFileName(view.getFileName()))
+                        .build()
+                        .toString());
+        if (webRequest.getHeader(HttpHeaders.RANGE) == null && sendfile(webRequest, content)) {
+            log.debug("Serving PDF via sendfile: pdfId={}", id);
+            return response.contentLength(content.contentLength()).build();
+        }
+        return response.body(content);
+    }
+
+    /**
+     * Asks Tomcat to write the file with sendfile once the handler returns.
+     *
+     * @return {@code false} when the content is not a file or the connector
+     *         does not support sendfile
+     */
+    private static boolean sendfile(WebRequest webRequest, Resource content) throws IOException {
+        if (!content.isFile() || !Boolean.TRUE.equals(
+                webRequest.getAttribute(SENDFILE_SUPPORT_ATTR, RequestAttributes.SCOPE_REQUEST))) {
+            return false;
+        }
+        webRequest.setAttribute(SENDFILE_FILENAME_ATTR, content.getFile().getAbsolutePath(),
+                RequestAttributes.SCOPE_REQUEST);
+        webRequest.setAttribute(SENDFILE_START_ATTR, 0L, RequestAttributes.SCOPE_REQUEST);
+        webRequest.setAttribute(SENDFILE_END_ATTR, content.contentLength(), RequestAttributes.SCOPE_REQUEST);
+        return true;
+    }
+
+    private static String downloadFileName(String fileName) {
+        return fileName.toLowerCase().endsWith(PDF_EXTENSION) ? fileName : fileName + PDF_EXTENSION;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.tu2l.pdf.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.tu2l.pdf.model.request.PDFTemplateRequest;
+import com.tu2l.pdf.model.response.PDFTemplateResponse;
+import com.tu2l.pdf.service.PDFTemplateService;
+
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequestMapping("/templates")
+public class PDFTemplateController {
+    private final PDFTemplateService templateService;
+
+    public PDFTemplateController(PDFTemplateService templateService) {
+        this.templateService = templateService;
+    }
+
+    @PostMapping
+    public ResponseEntity<PDFTemplateResponse> create(@Valid @RequestBody PDFTemplateRequest request)
+            throws Exception {
+        log.info("Received request to create template: name={}", request.getName());
+        return ResponseEntity.ok(templateService.createTemplate(request));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<PDFTemplateResponse> update(@PathVariable("id") long id,
+                                                      @Valid @RequestBody PDFTemplateRequest request)
+            throws Exception {
+        log.info("Received request to update template: templateId={}", id);
+        return ResponseEntity.ok(templateService.updateTemplate(id, request));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PDFTemplateResponse> get(@PathVariable("id") long id) throws Exception {
+        log.info("Received request to get template: templateId={}", id);
+        return ResponseEntity.ok(templateService.getTemplate(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<PDFTemplateResponse> delete(@PathVariable("id") long id) throws Exception {
+        log.info("Received request to delete template: templateId={}", id);
+        return ResponseEntity.ok(templateService.deleteTemplate(id));
+    }
+}
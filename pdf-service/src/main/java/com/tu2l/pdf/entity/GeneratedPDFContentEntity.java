@@ -0,0 +1,33 @@
+package com.tu2l.pdf.entity;
+
+import com.tu2l.pdf.storage.PDFCodec;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Stored PDF bytes keyed by the SHA-256 of the original PDF, so identical
+ * documents are stored once. {@code content} is encoded with {@code codec};
+ * {@code sizeBytes} is the size of the original PDF.
+ */
+@Entity
+@Table(name = "generated_pdf_contents")
+@Data
+public class GeneratedPDFContentEntity {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+    @Column(nullable = false)
+    private byte[] content;
+    @Column(nullable = false)
+    private long sizeBytes;
+    // Null for content stored before compression was introduced
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PDFCodec codec;
+}
@@ -3,17 +3,31 @@ package com.tu2l.pdf.entity;
 import java.time.LocalDateTime;
 
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import com.tu2l.pdf.model.states.PDFStatus;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Data;
 
+/**
+ * Metadata and status of a generated PDF. The content itself lives in
+ * {@link GeneratedPDFContentEntity}, referenced by {@code contentHash}, so this
+ * row stays small enough for cheap status polls and listings.
+ */
 @Entity
-@Table(name = "generated_pdfs")
+@Table(name = "generated_pdfs", indexes = {
+        // Serves listings of a user's PDFs by keyset and the per-user status lookups
+        @Index(name = "idx_generated_pdfs_user_created", columnList = "user_id, created_at, id")
+})
 @Data
 public class GeneratedPDFEntity {
     @Id
@@ -22,12 +36,20 @@ public class GeneratedPDFEntity {
     @Column(nullable = false)
     private String userId;
     @Column(nullable = false)
-    private String encodedPdf;
-    @Column(nullable = false)
     private String fileName;
     @Column(nullable = false)
     private int numberOfPages;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PDFStatus status;
+    @Column(length = 64)
+    private String contentHash;
+    private Long sizeBytes;
+    @Column(length = 1024)
+    private String errorMessage;
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
 }
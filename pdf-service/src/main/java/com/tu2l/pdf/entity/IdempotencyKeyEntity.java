@@ -0,0 +1,31 @@
+package com.tu2l.pdf.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * An {@code Idempotency-Key} and the PDF its request created. The key, scoped
+ * to the endpoint and user, and the request are stored as SHA-256 digests, so
+ * every row has the same small size. {@code pdfId} is null while the request
+ * is running. {@code expiresAt} is epoch milliseconds: the end of the
+ * reservation while running, the end of replays once completed.
+ */
+@Entity
+@Table(name = "pdf_idempotency_keys", indexes = {
+        @Index(name = "idx_pdf_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+public class IdempotencyKeyEntity {
+    @Id
+    @Column(length = 64)
+    private String keyHash;
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+    private Long pdfId;
+    @Column(nullable = false)
+    private long expiresAt;
+}
@@ -0,0 +1,23 @@
+package com.tu2l.pdf.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Number of {@link GeneratedPDFEntity} rows pointing at a stored content hash.
+ * Kept in the database for every content store, so the count and the
+ * metadata rows change in the same transaction.
+ */
+@Entity
+@Table(name = "pdf_content_refs")
+@Data
+public class PDFContentReferenceEntity {
+    @Id
+    @Column(length = 64)
+    private String contentHash;
+    @Column(nullable = false)
+    private long refCount;
+}
@@ -0,0 +1,77 @@
+package com.tu2l.pdf.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import com.tu2l.pdf.model.states.RenderJobStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * A background render of the {@link GeneratedPDFEntity} {@code pdfId}, claimed
+ * by one worker at a time through a lease. {@code nextAttemptAt} and
+ * {@code leaseExpiresAt} are epoch milliseconds so the claim query compares
+ * plain numbers on every database.
+ */
+@Entity
+@Table(name = "pdf_render_jobs", indexes = {
+        @Index(name = "idx_pdf_render_jobs_claim", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_pdf_render_jobs_pdf_id", columnList = "pdf_id")
+})
+@Data
+public class RenderJobEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long pdfId;
+    private String userId;
+    // Virtual finish time for fair-share claims; null on jobs queued without fair sharing
+    private Long shareTag;
+    // Latest share tag the job can be deferred to behind cheaper jobs of its user
+    private Long maxShareTag;
+    // Cost features read at submission, see RenderCostEstimator
+    private Long contentBytes;
+    private Integer imageCount;
+    private Integer tableCount;
+    private Long estimatedCostMillis;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RenderJobStatus status;
+    // Base64 HTML of the request; cleared once the job has failed for good
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String content;
+    private Long templateId;
+    // JSON template data, used instead of content when templateId is set
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String templateData;
+    private Integer renderTimeoutSeconds;
+    @Column(length = 2048)
+    private String callbackUrl;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(nullable = false)
+    private int maxAttempts;
+    @Column(nullable = false)
+    private long nextAttemptAt;
+    @Column(length = 128)
+    private String leaseOwner;
+    private Long leaseExpiresAt;
+    @Column(length = 1024)
+    private String lastError;
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,56 @@
+package com.tu2l.pdf.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.tu2l.pdf.model.states.WebhookDeliveryStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * A completion event waiting to be POSTed to {@code callbackUrl}. Written in
+ * the transaction that finishes the render job, so an event is never lost
+ * between the two. A sender claims due rows by pushing {@code nextAttemptAt}
+ * (epoch milliseconds) past its lease.
+ */
+@Entity
+@Table(name = "pdf_webhook_deliveries", indexes = {
+        @Index(name = "idx_pdf_webhook_deliveries_claim", columnList = "status, next_attempt_at")
+})
+@Data
+public class WebhookDeliveryEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private Long pdfId;
+    @Column(nullable = false, length = 2048)
+    private String callbackUrl;
+    // Serialized PDFJobEventResponse
+    @Column(nullable = false, length = 4096)
+    private String payload;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private WebhookDeliveryStatus status;
+    @Column(nullable = false)
+    private int attempts;
+    @Column(nullable = false)
+    private long nextAttemptAt;
+    @Column(length = 128)
+    private String leaseOwner;
+    @Column(length = 1024)
+    private String lastError;
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
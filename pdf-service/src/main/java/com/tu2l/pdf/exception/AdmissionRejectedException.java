@@ -0,0 +1,21 @@
+package com.tu2l.pdf.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the service is at capacity and a request could not be admitted
+ * within its queueing budget. Mapped to {@code 429 Too Many Requests} with a
+ * {@code Retry-After} header.
+ */
+public class AdmissionRejectedException extends PDFException {
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,10 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when a callback URL points at a host webhooks may not be sent to.
+ */
+public class CallbackUrlRejectedException extends PDFException {
+    public CallbackUrlRejectedException(String message) {
+        super(message);
+    }
+}
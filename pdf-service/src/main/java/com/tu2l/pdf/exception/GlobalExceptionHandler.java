@@ -2,6 +2,7 @@ package com.tu2l.pdf.exception;
 
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -63,4 +64,70 @@ public class GlobalExceptionHandler {
         error.setStatus(ResponseProcessingStatus.FAILURE);  
         return new ResponseEntity<>(error, HttpStatus.OK);
     }   
+
+    @ExceptionHandler(PDFNotFoundException.class)
+    public ResponseEntity<BaseResponse> handlePDFNotFoundExceptions(PDFNotFoundException exception) {
+        log.warn("PDF not found: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(PDFTemplateException.class)
+    public ResponseEntity<BaseResponse> handleTemplateExceptions(PDFTemplateException exception) {
+        log.warn("Template rejected: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(CallbackUrlRejectedException.class)
+    public ResponseEntity<BaseResponse> handleCallbackUrlRejectedExceptions(CallbackUrlRejectedException exception) {
+        log.warn("Callback URL rejected: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(PDFRenderTimeoutException.class)
+    public ResponseEntity<BaseResponse> handleRenderTimeoutExceptions(PDFRenderTimeoutException exception) {
+        log.error("PDF render timed out: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<BaseResponse> handleAdmissionRejectedExceptions(AdmissionRejectedException exception) {
+        log.warn("Request rejected by admission control: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfter().toSeconds()))
+                .body(error);
+    }
+
+    @ExceptionHandler(PayloadLengthRequiredException.class)
+    public ResponseEntity<BaseResponse> handlePayloadLengthRequiredExceptions(
+            PayloadLengthRequiredException exception) {
+        log.warn("Request rejected without Content-Length: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.LENGTH_REQUIRED);
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    public ResponseEntity<BaseResponse> handleIdempotencyKeyConflicts(IdempotencyKeyConflictException exception) {
+        log.warn("Idempotency key conflict: {}", exception.getMessage());
+        BaseResponse error = new BaseResponse() {};
+        error.setMessage(exception.getMessage());
+        error.setStatus(ResponseProcessingStatus.FAILURE);
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
 }
\ No newline at end of file
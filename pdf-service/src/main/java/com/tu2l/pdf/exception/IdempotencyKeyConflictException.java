@@ -0,0 +1,13 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when an {@code Idempotency-Key} was already used for a different
+ * request, or its request is still running after the replay stopped waiting.
+ * Mapped to {@code 409 Conflict}.
+ */
+public class IdempotencyKeyConflictException extends PDFException {
+
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
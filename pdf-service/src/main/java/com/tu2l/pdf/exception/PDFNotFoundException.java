@@ -0,0 +1,10 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when a stored PDF does not exist or its content is not available yet.
+ */
+public class PDFNotFoundException extends PDFException {
+    public PDFNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when a render does not finish within its deadline. The renderer
+ * process tree has already been destroyed when this is raised.
+ */
+public class PDFRenderTimeoutException extends PDFException {
+    public PDFRenderTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when a template cannot be compiled or rendered with the given data.
+ */
+public class PDFTemplateException extends PDFException {
+    public PDFTemplateException(String message) {
+        super(message);
+    }
+
+    public PDFTemplateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
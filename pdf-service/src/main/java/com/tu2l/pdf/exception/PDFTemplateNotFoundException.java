@@ -0,0 +1,7 @@
+package com.tu2l.pdf.exception;
+
+public class PDFTemplateNotFoundException extends PDFNotFoundException {
+    public PDFTemplateNotFoundException(long templateId) {
+        super("Template not found: " + templateId);
+    }
+}
@@ -0,0 +1,12 @@
+package com.tu2l.pdf.exception;
+
+/**
+ * Thrown when a request body of unknown length, e.g. a chunked one, would
+ * have to be charged against the in-flight payload budget. Mapped to
+ * {@code 411 Length Required}.
+ */
+public class PayloadLengthRequiredException extends PDFException {
+    public PayloadLengthRequiredException(String message) {
+        super(message);
+    }
+}
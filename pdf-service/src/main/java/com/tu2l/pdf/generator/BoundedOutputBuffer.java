@@ -0,0 +1,74 @@
+package com.tu2l.pdf.generator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ring buffer that keeps the last {@code capacity} bytes of a process output
+ * stream. The stream is drained on a background thread so that a chatty
+ * process can never block on a full pipe, while memory stays bounded.
+ */
+final class BoundedOutputBuffer {
+    static final int DEFAULT_CAPACITY = 8 * 1024;
+
+    private static final ExecutorService DRAINERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "process-output-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final byte[] ring;
+    private int next;
+    private long total;
+
+    private BoundedOutputBuffer(int capacity) {
+        this.ring = new byte[capacity];
+    }
+
+    static BoundedOutputBuffer drain(InputStream stream) {
+        return drain(stream, DEFAULT_CAPACITY);
+    }
+
+    static BoundedOutputBuffer drain(InputStream stream, int capacity) {
+        BoundedOutputBuffer buffer = new BoundedOutputBuffer(capacity);
+        DRAINERS.execute(() -> buffer.consume(stream));
+        return buffer;
+    }
+
+    private void consume(InputStream stream) {
+        byte[] chunk = new byte[1024];
+        try (stream) {
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                append(chunk, read);
+            }
+        } catch (IOException e) {
+            // The process went away; whatever was captured so far is kept
+        }
+    }
+
+    private synchronized void append(byte[] chunk, int length) {
+        for (int i = 0; i < length; i++) {
+            ring[next] = chunk[i];
+            next = (next + 1) % ring.length;
+        }
+        total += length;
+    }
+
+    /**
+     * @return the captured tail of the output, decoded as UTF-8
+     */
+    @Override
+    public synchronized String toString() {
+        if (total <= ring.length) {
+            return new String(ring, 0, (int) total, StandardCharsets.UTF_8).trim();
+        }
+        byte[] ordered = new byte[ring.length];
+        System.arraycopy(ring, next, ordered, 0, ring.length - next);
+        System.arraycopy(ring, 0, ordered, ring.length - next, next);
+        return ("..." + new String(ordered, StandardCharsets.UTF_8)).trim();
+    }
+}
@@ -0,0 +1,35 @@
+package com.tu2l.pdf.generator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTML to render, read as a stream so that generators can pass it on without
+ * holding the document in memory. A source may be opened more than once, for
+ * example to compute the render cache key before rendering.
+ */
+@FunctionalInterface
+public interface HtmlSource {
+    Reader open() throws IOException;
+
+    /**
+     * Writes the HTML to {@code out} as UTF-8 through fixed-size buffers.
+     * {@code out} is flushed but not closed.
+     */
+    default void writeTo(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        try (Reader html = open()) {
+            html.transferTo(writer);
+        }
+        writer.flush();
+    }
+
+    static HtmlSource of(String html) {
+        return () -> new StringReader(html);
+    }
+}
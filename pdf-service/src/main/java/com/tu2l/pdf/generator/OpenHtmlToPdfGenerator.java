@@ -0,0 +1,117 @@
+package com.tu2l.pdf.generator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.jsoup.helper.W3CDom;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.springframework.stereotype.Component;
+
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
+import com.openhtmltopdf.extend.impl.FSDefaultCacheStore;
+import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.Orientation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process {@link PDFGenerator} built on openhtmltopdf/PDFBox. Renders
+ * without leaving the JVM, so there is no fork/exec or temp-file round trip.
+ * <p>
+ * Incoming HTML is parsed leniently with jsoup (openhtmltopdf itself requires
+ * well-formed XHTML) and the layout parameters are applied through an injected
+ * {@code @page} rule, which the document's own stylesheet may still override.
+ * Font metrics are kept in a cache store shared by all renders, so fonts are
+ * parsed once per process rather than once per document.
+ */
+@Slf4j
+@Component("openHtmlToPdfGenerator")
+public class OpenHtmlToPdfGenerator implements PDFGenerator {
+    private static final String[] FONT_EXTENSIONS = { ".ttf", ".otf" };
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new FSDefaultCacheStore();
+    private final List<File> fontFiles;
+
+    public OpenHtmlToPdfGenerator(PDFServiceProperties properties) {
+        this.fontFiles = discoverFonts(properties.getGenerator().getOpenhtmltopdf().getFontDirectory());
+    }
+
+    @Override
+    public byte[] generatePDF(PDFGeneratorConfiguration configuration) throws Exception {
+        if (configuration == null) {
+            throw new IllegalStateException("PDFGenerator is not initialized with configuration.");
+        }
+
+        Document document;
+        try (Reader html = configuration.getHtml().open()) {
+            document = Parser.htmlParser().parseInput(html, "");
+        }
+        document.head().prependElement("style").text(pageRule(configuration.getLayoutParams()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        PdfRendererBuilder builder = new PdfRendererBuilder()
+                .useFastMode()
+                .useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache)
+                .withW3cDocument(new W3CDom().fromJsoup(document), null)
+                .toStream(output);
+        for (File fontFile : fontFiles) {
+            builder.useFont(fontFile, fontFamily(fontFile));
+        }
+
+        log.debug("Rendering PDF in-process for file: {}", configuration.getFileName());
+        builder.run();
+        log.debug("In-process render completed: fileName={}, size={} bytes", configuration.getFileName(),
+                output.size());
+        return output.toByteArray();
+    }
+
+    static String pageRule(LayoutParams layoutParams) {
+        float width = layoutParams.getPageSize().getWidthMm();
+        float height = layoutParams.getPageSize().getHeightMm();
+        if (layoutParams.getOrientation() == Orientation.LANDSCAPE) {
+            float swap = width;
+            width = height;
+            height = swap;
+        }
+        return String.format(Locale.ROOT, "@page { size: %smm %smm; margin: %s %s %s %s; }",
+                width, height,
+                layoutParams.getMarginTop(), layoutParams.getMarginRight(),
+                layoutParams.getMarginBottom(), layoutParams.getMarginLeft());
+    }
+
+    private static List<File> discoverFonts(String fontDirectory) {
+        List<File> fonts = new ArrayList<>();
+        if (fontDirectory == null || fontDirectory.isBlank()) {
+            return fonts;
+        }
+        File[] candidates = new File(fontDirectory).listFiles();
+        if (candidates == null) {
+            log.warn("Font directory does not exist or is not readable: {}", fontDirectory);
+            return fonts;
+        }
+        for (File candidate : candidates) {
+            String name = candidate.getName().toLowerCase(Locale.ROOT);
+            for (String extension : FONT_EXTENSIONS) {
+                if (candidate.isFile() && name.endsWith(extension)) {
+                    fonts.add(candidate);
+                }
+            }
+        }
+        log.info("Registered {} font(s) for in-process rendering from {}", fonts.size(), fontDirectory);
+        return fonts;
+    }
+
+    private static String fontFamily(File fontFile) {
+        String name = fontFile.getName();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+}
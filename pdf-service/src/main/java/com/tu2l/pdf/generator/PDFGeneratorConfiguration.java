@@ -1,5 +1,7 @@
 package com.tu2l.pdf.generator;
 
+import java.time.Duration;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,7 +11,9 @@ public class PDFGeneratorConfiguration {
     private LayoutParams layoutParams;
     private int numberOfPagesToGenerate;
     private String fileName;
-    private String htmlContent;
+    private HtmlSource html;
+    // Render deadline; null falls back to the generator's configured default
+    private Duration renderTimeout;
 
     @Data
     public static class LayoutParams {
@@ -32,44 +36,65 @@ public class PDFGeneratorConfiguration {
         LANDSCAPE
     }
 
+    /**
+     * Supported page sizes with their portrait dimensions in millimetres. The
+     * enum names are passed verbatim to wkhtmltopdf; the dimensions are used by
+     * engines that lay out pages themselves.
+     */
     public static enum PageSize {
         // ISO A Series
-        A0,
-        A1,
-        A2,
-        A3,
-        A4,
-        A5,
-        A6,
-        A7,
-        A8,
-        A9,
+        A0(841, 1189),
+        A1(594, 841),
+        A2(420, 594),
+        A3(297, 420),
+        A4(210, 297),
+        A5(148, 210),
+        A6(105, 148),
+        A7(74, 105),
+        A8(52, 74),
+        A9(37, 52),
         
         // ISO B Series
-        B0,
-        B1,
-        B2,
-        B3,
-        B4,
-        B5,
-        B6,
-        B7,
-        B8,
-        B9,
-        B10,
+        B0(1000, 1414),
+        B1(707, 1000),
+        B2(500, 707),
+        B3(353, 500),
+        B4(250, 353),
+        B5(176, 250),
+        B6(125, 176),
+        B7(88, 125),
+        B8(62, 88),
+        B9(44, 62),
+        B10(31, 44),
         
         // ISO C Series (Envelopes)
-        C5E,
-        COMM10E,
-        DLE,
+        C5E(163, 229),
+        COMM10E(105, 241),
+        DLE(110, 220),
         
         // North American
-        EXECUTIVE,
-        FOLIO,
-        LEDGER,
-        LEGAL,
-        LETTER,
-        TABLOID
+        EXECUTIVE(190.5f, 254),
+        FOLIO(210, 330),
+        LEDGER(431.8f, 279.4f),
+        LEGAL(215.9f, 355.6f),
+        LETTER(215.9f, 279.4f),
+        TABLOID(279.4f, 431.8f);
+
+        private final float widthMm;
+        private final float heightMm;
+
+        PageSize(float widthMm, float heightMm) {
+            this.widthMm = widthMm;
+            this.heightMm = heightMm;
+        }
+
+        public float getWidthMm() {
+            return widthMm;
+        }
+
+        public float getHeightMm() {
+            return heightMm;
+        }
     }
 
 }
\ No newline at end of file
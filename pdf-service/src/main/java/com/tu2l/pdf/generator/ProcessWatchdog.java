@@ -0,0 +1,57 @@
+package com.tu2l.pdf.generator;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Enforces a render deadline on an external process. When the deadline
+ * passes, the process and all of its descendants are destroyed forcibly, which
+ * also unblocks any thread stuck reading from or writing to its pipes.
+ */
+@Slf4j
+final class ProcessWatchdog implements AutoCloseable {
+    private static final ScheduledThreadPoolExecutor SCHEDULER = createScheduler();
+
+    private final ScheduledFuture<?> task;
+    private volatile boolean expired;
+
+    private ProcessWatchdog(Process process, Duration timeout) {
+        this.task = SCHEDULER.schedule(() -> {
+            expired = true;
+            log.warn("Render deadline of {} exceeded, destroying process tree of pid={}", timeout, process.pid());
+            destroyTree(process);
+        }, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    static ProcessWatchdog watch(Process process, Duration timeout) {
+        return new ProcessWatchdog(process, timeout);
+    }
+
+    static void destroyTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    boolean expired() {
+        return expired;
+    }
+
+    @Override
+    public void close() {
+        task.cancel(false);
+    }
+
+    private static ScheduledThreadPoolExecutor createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "render-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
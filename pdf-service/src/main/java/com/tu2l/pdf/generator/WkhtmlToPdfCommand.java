@@ -0,0 +1,65 @@
+package com.tu2l.pdf.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+
+/**
+ * Builds wkhtmltopdf command lines so that the one-shot and pooled generators
+ * always pass identical layout options.
+ */
+final class WkhtmlToPdfCommand {
+    static final String READ_ARGS_FROM_STDIN = "--read-args-from-stdin";
+
+    private WkhtmlToPdfCommand() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    static List<String> layoutArguments(LayoutParams layoutParams) {
+        List<String> args = new ArrayList<>();
+        args.add("--page-size");
+        args.add(layoutParams.getPageSize().name());
+        args.add("--orientation");
+        args.add(capitalize(layoutParams.getOrientation().name()));
+        args.add("--margin-top");
+        args.add(layoutParams.getMarginTop());
+        args.add("--margin-bottom");
+        args.add(layoutParams.getMarginBottom());
+        args.add("--margin-left");
+        args.add(layoutParams.getMarginLeft());
+        args.add("--margin-right");
+        args.add(layoutParams.getMarginRight());
+        return args;
+    }
+
+    /**
+     * Joins arguments into a single line understood by
+     * {@code --read-args-from-stdin}, quoting every token so paths with spaces
+     * survive the round trip.
+     */
+    static String toStdinLine(List<String> args) {
+        StringBuilder line = new StringBuilder();
+        for (String arg : args) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append('"');
+            for (int i = 0; i < arg.length(); i++) {
+                char c = arg.charAt(i);
+                if (c == '"' || c == '\\') {
+                    line.append('\\');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+        return line.toString();
+    }
+
+    private static String capitalize(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        return Character.toUpperCase(lower.charAt(0)) + lower.substring(1);
+    }
+}
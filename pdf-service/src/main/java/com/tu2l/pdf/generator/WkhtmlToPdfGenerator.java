@@ -1,50 +1,140 @@
 package com.tu2l.pdf.generator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.stereotype.Component;
 
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFRenderTimeoutException;
 import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * One-shot wkhtmltopdf generator. By default the HTML is streamed to the
+ * process's stdin as it is decoded and the PDF is read back from its stdout, so the hot path
+ * does no disk I/O. The temp-file flow is kept as a fallback for when piping
+ * is disabled or fails at the I/O level; a fallback render only gets what is
+ * left of the render deadline.
+ * <p>
+ * Every render runs under a {@link ProcessWatchdog}: once the deadline passes
+ * the whole wkhtmltopdf process tree is killed and a
+ * {@link PDFRenderTimeoutException} is raised. Diagnostic output is drained in
+ * the background into a {@link BoundedOutputBuffer} and attached to failures.
+ */
 @Slf4j
 @Component("wkhtmlToPdfGenerator")
 public class WkhtmlToPdfGenerator implements PDFGenerator {
-    private static final String JAVA_TEMP_DIR = "java.io.tmpdir";
+    private static final String STDIO = "-";
+    private static final String TEMP_DIR_PREFIX = "wkhtmltopdf-";
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private final String wkhtmltopdfBinary;
+    private final boolean piped;
+    private final Duration defaultRenderTimeout;
+
+    public WkhtmlToPdfGenerator(PDFServiceProperties properties) {
+        this.wkhtmltopdfBinary = properties.getGenerator().getWkhtmltopdf().getBinary();
+        this.piped = properties.getGenerator().getWkhtmltopdf().isPiped();
+        this.defaultRenderTimeout = properties.getGenerator().getRenderTimeout();
+    }
 
     @Override
     public byte[] generatePDF(PDFGeneratorConfiguration configuration) throws Exception {
-        // Implementation for generating PDF using wkhtmltopdf
-        // This is a placeholder implementation
         if (configuration == null) {
             throw new IllegalStateException("PDFGenerator is not initialized with configuration.");
         }
 
-        // Create temporary files for HTML input and PDF output
-        String tempDir = System.getProperty(JAVA_TEMP_DIR) + File.separator + System.currentTimeMillis();
-        File tempDirFile = new File(tempDir);
-        boolean result = tempDirFile.mkdirs();
+        // One deadline for the render, so a fallback only gets the time the piped attempt left
+        long deadline = System.nanoTime() + renderTimeout(configuration).toNanos();
+        if (piped) {
+            try {
+                return generatePiped(configuration, renderTimeout(configuration));
+            } catch (IOException e) {
+                log.warn("Piped wkhtmltopdf render failed for file: {}, falling back to temp files: {}",
+                        configuration.getFileName(), e.getMessage());
+            }
+        }
+        Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw timeoutException(configuration);
+        }
+        return generateWithTempFiles(configuration, remaining);
+    }
 
-        if (!result) {
-            log.error("Failed to create temp directory: {}", tempDir);
-            throw new IOException("Failed to create temp directory: " + tempDir);
+    private byte[] generatePiped(PDFGeneratorConfiguration configuration, Duration timeout) throws Exception {
+        List<String> command = baseCommand(configuration.getLayoutParams());
+        command.add(STDIO);
+        command.add(STDIO);
+
+        Process process = new ProcessBuilder(command).start();
+        log.debug("wkhtmltopdf process started in piped mode for file: {}", configuration.getFileName());
+        // stdout carries the PDF, so progress output is drained separately
+        BoundedOutputBuffer diagnostics = BoundedOutputBuffer.drain(process.getErrorStream());
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        int exitCode;
+        try (ProcessWatchdog watchdog = ProcessWatchdog.watch(process, timeout)) {
+            try {
+                // wkhtmltopdf reads its whole input before rendering, so writing
+                // stdin to completion before draining stdout cannot deadlock
+                try (OutputStream stdin = process.getOutputStream()) {
+                    configuration.getHtml().writeTo(stdin);
+                }
+                try (InputStream stdout = process.getInputStream()) {
+                    stdout.transferTo(pdf);
+                }
+                exitCode = process.waitFor();
+            } catch (IOException e) {
+                throwIfExpired(watchdog, configuration);
+                throw e;
+            }
+            throwIfExpired(watchdog, configuration);
+        } finally {
+            if (process.isAlive()) {
+                ProcessWatchdog.destroyTree(process);
+            }
+        }
+
+        log.debug("wkhtmltopdf process completed with exit code: {}", exitCode);
+        if (exitCode != 0) {
+            log.error("wkhtmltopdf failed with exit code: {} for file: {}, output: {}", exitCode,
+                    configuration.getFileName(), diagnostics);
+            throw new RuntimeException("wkhtmltopdf failed with exit code: " + exitCode);
+        }
+        if (pdf.size() == 0) {
+            throw new IOException("wkhtmltopdf produced no output on stdout: " + diagnostics);
         }
-        log.debug("Temporary directory created: {}", tempDir);
+        log.debug("PDF read from stdout: fileName={}, size={} bytes", configuration.getFileName(), pdf.size());
+        return pdf.toByteArray();
+    }
 
-        File htmlFile = new File(tempDir, configuration.getFileName() + ".html");
-        File pdfFile = new File(tempDir, configuration.getFileName() + ".pdf");
+    private byte[] generateWithTempFiles(PDFGeneratorConfiguration configuration, Duration timeout)
+            throws Exception {
+        // A unique directory per render, so concurrent requests never collide
+        File tempDirFile = Files.createTempDirectory(TEMP_DIR_PREFIX).toFile();
+        log.debug("Temporary directory created: {}", tempDirFile.getAbsolutePath());
+
+        File htmlFile = new File(tempDirFile, configuration.getFileName() + ".html");
+        File pdfFile = new File(tempDirFile, configuration.getFileName() + ".pdf");
 
         try {
             // Write HTML to temp file
             log.debug("Writing HTML content to file: {}", htmlFile.getAbsolutePath());
-            Files.writeString(htmlFile.toPath(), configuration.getHtmlContent());
+            try (OutputStream html = Files.newOutputStream(htmlFile.toPath())) {
+                configuration.getHtml().writeTo(html);
+            }
 
             // Execute wkhtmltopdf command
             log.debug("Executing wkhtmltopdf command for file: {}", configuration.getFileName());
-            int exitCode = executeWkhtmltopdfCommand(htmlFile, pdfFile, configuration.getLayoutParams());
+            int exitCode = executeWkhtmltopdfCommand(htmlFile, pdfFile, configuration, timeout);
 
             if (exitCode != 0) {
                 log.error("wkhtmltopdf failed with exit code: {} for file: {}", exitCode,
@@ -70,28 +160,54 @@ public class WkhtmlToPdfGenerator implements PDFGenerator {
         }
     }
 
-    private int executeWkhtmltopdfCommand(File htmlFile, File pdfFile, LayoutParams layoutParams)
-            throws IOException, InterruptedException {
+    private int executeWkhtmltopdfCommand(File htmlFile, File pdfFile, PDFGeneratorConfiguration configuration,
+            Duration timeout) throws IOException, InterruptedException, PDFRenderTimeoutException {
         log.debug("Building wkhtmltopdf command: input={}, output={}",
                 htmlFile.getAbsolutePath(), pdfFile.getAbsolutePath());
-        ProcessBuilder processBuilder = new ProcessBuilder(
-                "wkhtmltopdf",
-                "--page-size", layoutParams.getPageSize().name(),
-                "--margin-top", layoutParams.getMarginTop(),
-                "--margin-bottom", layoutParams.getMarginBottom(),
-                "--margin-left", layoutParams.getMarginLeft(),
-                "--margin-right", layoutParams.getMarginRight(),
-                htmlFile.getAbsolutePath(),
-                pdfFile.getAbsolutePath());
+        List<String> command = baseCommand(configuration.getLayoutParams());
+        command.add(htmlFile.getAbsolutePath());
+        command.add(pdfFile.getAbsolutePath());
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
 
         processBuilder.redirectErrorStream(true);
         Process process = processBuilder.start();
-        log.debug("wkhtmltopdf process started, waiting for completion");
-        int exitCode = process.waitFor();
+        BoundedOutputBuffer output = BoundedOutputBuffer.drain(process.getInputStream());
+        log.debug("wkhtmltopdf process started, waiting up to {} for completion", timeout);
+        int exitCode;
+        try (ProcessWatchdog watchdog = ProcessWatchdog.watch(process, timeout)) {
+            exitCode = process.waitFor();
+            throwIfExpired(watchdog, configuration);
+        }
         log.debug("wkhtmltopdf process completed with exit code: {}", exitCode);
+        if (exitCode != 0) {
+            log.error("wkhtmltopdf output for file {}: {}", configuration.getFileName(), output);
+        }
         return exitCode;
     }
 
+    private Duration renderTimeout(PDFGeneratorConfiguration configuration) {
+        return configuration.getRenderTimeout() != null ? configuration.getRenderTimeout() : defaultRenderTimeout;
+    }
+
+    private void throwIfExpired(ProcessWatchdog watchdog, PDFGeneratorConfiguration configuration)
+            throws PDFRenderTimeoutException {
+        if (watchdog.expired()) {
+            throw timeoutException(configuration);
+        }
+    }
+
+    private PDFRenderTimeoutException timeoutException(PDFGeneratorConfiguration configuration) {
+        return new PDFRenderTimeoutException("PDF rendering exceeded the deadline of "
+                + renderTimeout(configuration).toMillis() + " ms for file: " + configuration.getFileName());
+    }
+
+    private List<String> baseCommand(LayoutParams layoutParams) {
+        List<String> command = new ArrayList<>();
+        command.add(wkhtmltopdfBinary);
+        command.addAll(WkhtmlToPdfCommand.layoutArguments(layoutParams));
+        return command;
+    }
+
     private void cleanUpResidualFiles(File htmlFile, File pdfFile) {
         if (htmlFile.exists()) {
             boolean deleted = htmlFile.delete();
@@ -0,0 +1,303 @@
+package com.tu2l.pdf.generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.exception.PDFRenderTimeoutException;
+import com.tu2l.pdf.util.ContainerResources;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link PDFGenerator} backed by a pool of long-lived wkhtmltopdf processes
+ * running in {@code --read-args-from-stdin} mode. Each job is sent as one
+ * command line and completion is detected from the progress output on stderr,
+ * so process start-up, Qt/WebKit initialisation and font-cache loading are paid
+ * once per worker instead of once per PDF.
+ * <p>
+ * A failed job prints its exit code after "Done", so "Done" alone does not end
+ * a job's output. Each job is followed by a blank-page sentinel job, and the
+ * job's status is read up to the first line of the sentinel's output, which
+ * keeps trailing lines of one job from being credited to the next.
+ * <p>
+ * A worker is recycled after {@code maxJobsPerWorker} renders, or immediately
+ * when it crashes or a job fails, because its internal state can no longer be
+ * trusted. A job that exceeds its render deadline kills the worker's whole
+ * process tree.
+ */
+@Slf4j
+@Component("wkhtmlToPdfPoolGenerator")
+public class WkhtmlToPdfPoolGenerator implements PDFGenerator {
+    private static final String DONE_MARKER = "Done";
+    private static final String EXIT_MARKER = "Exit with code";
+    // Renders a blank page to the discarded stdout; it always succeeds, so its "Done" is its last line
+    private static final String SENTINEL_JOB = WkhtmlToPdfCommand.toStdinLine(List.of("about:blank", "-"));
+    private static final String JOB_DIR_PREFIX = "wkhtmltopdf-job-";
+    private static final int DIAGNOSTIC_LINES = 20;
+
+    private final String wkhtmltopdfBinary;
+    private final int poolSize;
+    private final int maxJobsPerWorker;
+    private final Duration defaultRenderTimeout;
+    private final Semaphore permits;
+    private final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public WkhtmlToPdfPoolGenerator(PDFServiceProperties properties, MeterRegistry meterRegistry) {
+        PDFServiceProperties.Wkhtmltopdf wkhtmltopdf = properties.getGenerator().getWkhtmltopdf();
+        int configuredSize = wkhtmltopdf.getPool().getSize();
+        this.wkhtmltopdfBinary = wkhtmltopdf.getBinary();
+        this.poolSize = configuredSize > 0 ? configuredSize : ContainerResources.availableCpus();
+        this.maxJobsPerWorker = Math.max(1, wkhtmltopdf.getPool().getMaxJobsPerWorker());
+        this.defaultRenderTimeout = properties.getGenerator().getRenderTimeout();
+        this.permits = new Semaphore(poolSize, true);
+
+        Gauge.builder("pdf.generator.pool.queue.depth", this, WkhtmlToPdfPoolGenerator::getQueueDepth)
+                .description("Render requests waiting for a free wkhtmltopdf worker")
+                .register(meterRegistry);
+        Gauge.builder("pdf.generator.pool.workers.busy", this, WkhtmlToPdfPoolGenerator::getBusyWorkers)
+                .register(meterRegistry);
+        Gauge.builder("pdf.generator.pool.workers.live", liveWorkers, AtomicInteger::get)
+                .register(meterRegistry);
+        log.info("wkhtmltopdf worker pool configured: size={}, maxJobsPerWorker={}", poolSize, maxJobsPerWorker);
+    }
+
+    @Override
+    public byte[] generatePDF(PDFGeneratorConfiguration configuration) throws Exception {
+        if (configuration == null) {
+            throw new IllegalStateException("PDFGenerator is not initialized with configuration.");
+        }
+
+        permits.acquire();
+        Worker worker = null;
+        boolean healthy = false;
+        Path jobDir = null;
+        try {
+            worker = borrowWorker();
+            jobDir = Files.createTempDirectory(JOB_DIR_PREFIX);
+            Path htmlFile = jobDir.resolve("input.html");
+            Path pdfFile = jobDir.resolve("output.pdf");
+            try (OutputStream html = Files.newOutputStream(htmlFile)) {
+                configuration.getHtml().writeTo(html);
+            }
+
+            List<String> args = new ArrayList<>(WkhtmlToPdfCommand.layoutArguments(configuration.getLayoutParams()));
+            args.add(htmlFile.toAbsolutePath().toString());
+            args.add(pdfFile.toAbsolutePath().toString());
+
+            log.debug("Dispatching render to wkhtmltopdf worker pid={} for file: {}", worker.pid(),
+                    configuration.getFileName());
+            Duration timeout = configuration.getRenderTimeout() != null
+                    ? configuration.getRenderTimeout()
+                    : defaultRenderTimeout;
+            worker.render(args, timeout, configuration.getFileName());
+
+            if (!Files.isRegularFile(pdfFile) || Files.size(pdfFile) == 0) {
+                throw new PDFException("wkhtmltopdf worker produced no output for file: "
+                        + configuration.getFileName());
+            }
+            byte[] pdfBytes = Files.readAllBytes(pdfFile);
+            healthy = true;
+            log.debug("Pooled render completed: fileName={}, size={} bytes, workerJobs={}",
+                    configuration.getFileName(), pdfBytes.length, worker.completedJobs());
+            return pdfBytes;
+        } finally {
+            releaseWorker(worker, healthy);
+            deleteRecursively(jobDir);
+            permits.release();
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getQueueDepth() {
+        return permits.getQueueLength();
+    }
+
+    public int getBusyWorkers() {
+        return poolSize - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            retire(worker);
+        }
+        log.info("wkhtmltopdf worker pool shut down");
+    }
+
+    private Worker borrowWorker() throws IOException {
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            log.warn("Discarding dead wkhtmltopdf worker pid={}", worker.pid());
+            retire(worker);
+        }
+        worker = new Worker(wkhtmltopdfBinary);
+        liveWorkers.incrementAndGet();
+        log.debug("Started wkhtmltopdf worker pid={}", worker.pid());
+        return worker;
+    }
+
+    private void releaseWorker(Worker worker, boolean healthy) {
+        if (worker == null) {
+            return;
+        }
+        if (!healthy || shutdown || !worker.isAlive() || worker.completedJobs() >= maxJobsPerWorker) {
+            log.debug("Recycling wkhtmltopdf worker pid={}: healthy={}, jobs={}", worker.pid(), healthy,
+                    worker.completedJobs());
+            retire(worker);
+            return;
+        }
+        idleWorkers.offer(worker);
+    }
+
+    private void retire(Worker worker) {
+        worker.destroy();
+        liveWorkers.decrementAndGet();
+    }
+
+    private void deleteRecursively(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Failed to clean up job directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * A single wkhtmltopdf process reading one job per line from stdin.
+     */
+    private static final class Worker {
+        private final Process process;
+        private final BufferedWriter commands;
+        private final BufferedReader progress;
+        private int completedJobs;
+
+        Worker(String binary) throws IOException {
+            ProcessBuilder processBuilder = new ProcessBuilder(binary, WkhtmlToPdfCommand.READ_ARGS_FROM_STDIN);
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            this.process = processBuilder.start();
+            this.commands = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.progress = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8));
+        }
+
+        void render(List<String> args, Duration timeout, String fileName)
+                throws IOException, PDFException {
+            Deque<String> diagnostics = new ArrayDeque<>(DIAGNOSTIC_LINES);
+            try (ProcessWatchdog watchdog = ProcessWatchdog.watch(process, timeout)) {
+                try {
+                    commands.write(WkhtmlToPdfCommand.toStdinLine(args));
+                    commands.newLine();
+                    commands.write(SENTINEL_JOB);
+                    commands.newLine();
+                    commands.flush();
+
+                    // The job printed "Done", but may still report an exit code on the next line
+                    boolean jobDone = false;
+                    // Every line of the job has been read; the rest belongs to the sentinel
+                    boolean jobEnded = false;
+                    String failure = null;
+                    String line;
+                    while ((line = progress.readLine()) != null) {
+                        if (diagnostics.size() == DIAGNOSTIC_LINES) {
+                            diagnostics.removeFirst();
+                        }
+                        diagnostics.addLast(line);
+                        if (!jobEnded && line.contains(EXIT_MARKER)) {
+                            failure = line.trim();
+                            jobEnded = true;
+                        } else if (jobDone || jobEnded) {
+                            jobEnded = true;
+                            if (line.contains(DONE_MARKER)) {
+                                if (failure != null) {
+                                    throw new PDFException("wkhtmltopdf worker reported failure: " + failure);
+                                }
+                                completedJobs++;
+                                return;
+                            }
+                        } else if (line.contains(DONE_MARKER)) {
+                            jobDone = true;
+                        }
+                    }
+                } catch (IOException e) {
+                    throwIfExpired(watchdog, timeout, fileName);
+                    throw e;
+                }
+                throwIfExpired(watchdog, timeout, fileName);
+            }
+            throw new IOException("wkhtmltopdf worker exited unexpectedly with code: " + exitCode()
+                    + ", output: " + String.join(" | ", diagnostics));
+        }
+
+        private static void throwIfExpired(ProcessWatchdog watchdog, Duration timeout, String fileName)
+                throws PDFRenderTimeoutException {
+            if (watchdog.expired()) {
+                throw new PDFRenderTimeoutException("PDF rendering exceeded the deadline of "
+                        + timeout.toMillis() + " ms for file: " + fileName);
+            }
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        long pid() {
+            return process.pid();
+        }
+
+        int completedJobs() {
+            return completedJobs;
+        }
+
+        void destroy() {
+            try {
+                commands.close();
+            } catch (IOException e) {
+                // Process is being discarded; nothing useful to do here
+            }
+            ProcessWatchdog.destroyTree(process);
+        }
+
+        private String exitCode() {
+            return process.isAlive() ? "running" : String.valueOf(process.exitValue());
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.tu2l.pdf.idempotency;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.IdempotencyKeyConflictException;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.model.projection.IdempotencyKeyView;
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+import com.tu2l.pdf.model.response.GeneratePDFResponse;
+import com.tu2l.pdf.repository.IdempotencyKeyRepository;
+import com.tu2l.pdf.util.ContentDigest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Runs a request sent with an {@code Idempotency-Key} at most once per key.
+ * <p>
+ * Keys are scoped to the endpoint and user. The first request reserves its key
+ * in {@code pdf_idempotency_keys} and records the id of the PDF it created;
+ * later requests with the key are answered from that PDF without rendering.
+ * A request arriving while the original is still running waits for it: on
+ * this instance through the original's future, across instances by polling
+ * the key's row. Completed keys are also indexed in memory, so most replays
+ * do not touch the database.
+ * <p>
+ * A failed request releases its key, so a retry runs it again, and its
+ * failure is passed to the requests waiting on this instance. Reusing a key
+ * for a different request is rejected.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    public enum Operation {
+        SAVE, ASYNC
+    }
+
+    // Builds the response of a replay from the PDF the original request created
+    @FunctionalInterface
+    public interface Replay {
+        GeneratePDFResponse replay(long pdfId) throws Exception;
+    }
+
+    private record CompletedKey(String requestHash, long pdfId, long expiresAt) {
+    }
+
+    private record RunningKey(String requestHash, CompletableFuture<Long> pdfId) {
+    }
+
+    private final IdempotencyKeyRepository repository;
+    private final JsonMapper jsonMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration leaseDuration;
+    private final Duration maxWait;
+    private final Duration pollInterval;
+    private final Cache<String, CompletedKey> completed;
+    private final Map<String, RunningKey> running = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter replayed;
+
+    public IdempotencyService(IdempotencyKeyRepository repository, JsonMapper jsonMapper,
+                              PDFServiceProperties properties, MeterRegistry meterRegistry) {
+        PDFServiceProperties.Idempotency config = properties.getIdempotency();
+        this.repository = repository;
+        this.jsonMapper = jsonMapper;
+        this.enabled = config.isEnabled();
+        this.ttl = config.getTtl();
+        this.leaseDuration = config.getLeaseDuration();
+        this.maxWait = config.getMaxWait();
+        this.pollInterval = config.getPollInterval();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(config.getMemoryMaxEntries())
+                .expireAfter(Expiry.creating((String keyHash, CompletedKey key) ->
+                        Duration.ofMillis(Math.max(0, key.expiresAt() - System.currentTimeMillis()))))
+                .build();
+        this.executed = Counter.builder("pdf.idempotency.requests").tag("result", "executed")
+                .register(meterRegistry);
+        this.replayed = Counter.builder("pdf.idempotency.requests").tag("result", "replayed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code action}, or answers with {@code replay} when {@code key} was
+     * already used for this request. Without a key, or when disabled, the
+     * action simply runs.
+     *
+     * @param action creates one PDF and returns a response carrying its id
+     */
+    public GeneratePDFResponse execute(Operation operation, String key, GenerateAndSavePDFRequest request,
+                                       Callable<GeneratePDFResponse> action, Replay replay) throws Exception {
+        if (key == null || !enabled) {
+            return action.call();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new PDFException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String keyHash = ContentDigest.sha256Hex(
+                (operation + "\n" + request.getUserId() + "\n" + key).getBytes(StandardCharsets.UTF_8));
+        String requestHash = requestHash(request);
+        long deadline = System.nanoTime() + maxWait.toNanos();
+
+        CompletedKey done = completed.getIfPresent(keyHash);
+        if (done != null) {
+            checkRequest(done.requestHash(), requestHash, key);
+            return replay(done.pdfId(), replay, key);
+        }
+        RunningKey own = new RunningKey(requestHash, new CompletableFuture<>());
+        RunningKey original = running.putIfAbsent(keyHash, own);
+        if (original != null) {
+            checkRequest(original.requestHash(), requestHash, key);
+            log.debug("Waiting for the original request of idempotency key: key={}", key);
+            return replay(await(original.pdfId(), deadline, key), replay, key);
+        }
+        try {
+            return claim(keyHash, own, deadline, key, action, replay);
+        } catch (Throwable e) {
+            // Has no effect once the action completed the future
+            own.pdfId().completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(keyHash, own);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int purged = repository.deleteAllExpired(System.currentTimeMillis());
+            if (purged > 0) {
+                log.debug("Purged expired idempotency keys: count={}", purged);
+            }
+        } catch (RuntimeException e) {
+            log.error("Purging expired idempotency keys failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserves the key and runs the action, or follows the request that holds
+     * the key until it completes.
+     */
+    private GeneratePDFResponse claim(String keyHash, RunningKey own, long deadline, String key,
+                                      Callable<GeneratePDFResponse> action, Replay replay) throws Exception {
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (repository.reserve(keyHash, own.requestHash(), now + leaseDuration.toMillis()) == 1) {
+                return run(keyHash, own, action);
+            }
+            Optional<IdempotencyKeyView> stored = repository.findViewByKeyHash(keyHash);
+            if (stored.isEmpty()) {
+                continue; // released by a failed request in between
+            }
+            IdempotencyKeyView view = stored.get();
+            if (view.getExpiresAt() < now) {
+                repository.deleteExpired(keyHash, now);
+                continue;
+            }
+            checkRequest(view.getRequestHash(), own.requestHash(), key);
+            if (view.getPdfId() != null) {
+                completed.put(keyHash, new CompletedKey(view.getRequestHash(), view.getPdfId(), view.getExpiresAt()));
+                own.pdfId().complete(view.getPdfId());
+                return replay(view.getPdfId(), replay, key);
+            }
+            // Running on another instance
+            if (System.nanoTime() - deadline >= 0) {
+                throw stillRunning(key);
+            }
+            Thread.sleep(pollInterval.toMillis());
+        }
+    }
+
+    private GeneratePDFResponse run(String keyHash, RunningKey own, Callable<GeneratePDFResponse> action)
+            throws Exception {
+        GeneratePDFResponse response;
+        try {
+            response = action.call();
+        } catch (Throwable e) {
+            own.pdfId().completeExceptionally(e);
+            repository.release(keyHash);
+            throw e;
+        }
+        long pdfId = Long.parseLong(response.getId());
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        completed.put(keyHash, new CompletedKey(own.requestHash(), pdfId, expiresAt));
+        own.pdfId().complete(pdfId);
+        executed.increment();
+        try {
+            if (repository.complete(keyHash, pdfId, expiresAt) == 0) {
+                log.warn("Idempotency key lost its reservation before completing: pdfId={}", pdfId);
+            }
+        } catch (RuntimeException e) {
+            // The PDF exists; only replays on other instances are lost
+            log.error("Recording idempotency key failed: pdfId={}, error={}", pdfId, e.getMessage(), e);
+        }
+        return response;
+    }
+
+    private GeneratePDFResponse replay(long pdfId, Replay replay, String key) throws Exception {
+        log.info("Replaying request for idempotency key: key={}, pdfId={}", key, pdfId);
+        replayed.increment();
+        return replay.replay(pdfId);
+    }
+
+    private static long await(CompletableFuture<Long> pdfId, long deadline, String key) throws Exception {
+        try {
+            return pdfId.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw stillRunning(key);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void checkRequest(String storedHash, String requestHash, String key)
+            throws IdempotencyKeyConflictException {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyConflictException("Idempotency-Key was already used for a different request: "
+                    + key);
+        }
+    }
+
+    private static IdempotencyKeyConflictException stillRunning(String key) {
+        return new IdempotencyKeyConflictException("The request for Idempotency-Key is still running: " + key);
+    }
+
+    // Digest of the request as JSON, written straight into the digest
+    private String requestHash(GenerateAndSavePDFRequest request) {
+        MessageDigest digest = ContentDigest.sha256();
+        jsonMapper.writeValue(new DigestOutputStream(OutputStream.nullOutputStream(), digest), request);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,227 @@
+package com.tu2l.pdf.job;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.model.projection.PDFStatusView;
+import com.tu2l.pdf.model.response.PDFJobEventResponse;
+import com.tu2l.pdf.model.states.PDFJobState;
+import com.tu2l.pdf.model.states.PDFStatus;
+import com.tu2l.pdf.repository.PDFRepository;
+import com.tu2l.pdf.service.PDFService;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes {@link PDFJobStateChangedEvent}s to server-sent event streams, per
+ * PDF or for all PDFs of a user, so clients do not have to poll for completion.
+ * <p>
+ * Changes made on this instance are fanned out from memory after commit.
+ * Jobs may also be completed by another instance; those changes are picked up
+ * by a periodic sweep that checks all watched PDFs and users in one query per
+ * kind, however many streams are open. Each state is sent once per PDF, so
+ * the sweep and local events never duplicate each other.
+ * <p>
+ * Events are written on a single thread, which keeps them in order and keeps
+ * slow clients from stalling the render workers that publish them.
+ */
+@Slf4j
+@Component
+public class PDFJobEventNotifier {
+    // Catches rows committed late or stamped by an instance with a skewed clock
+    private static final Duration SWEEP_OVERLAP = Duration.ofSeconds(30);
+
+    private final PDFService pdfService;
+    private final PDFRepository repository;
+    private final Duration timeout;
+    private final Map<Long, Set<SseEmitter>> pdfStreams = new ConcurrentHashMap<>();
+    private final Map<String, Set<SseEmitter>> userStreams = new ConcurrentHashMap<>();
+    private final Cache<Long, PDFJobState> delivered;
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pdf-job-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile LocalDateTime lastSweep = LocalDateTime.now();
+
+    public PDFJobEventNotifier(PDFService pdfService, PDFRepository repository, PDFServiceProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.pdfService = pdfService;
+        this.repository = repository;
+        this.timeout = properties.getEvents().getTimeout();
+        this.delivered = Caffeine.newBuilder()
+                .expireAfterWrite(timeout)
+                .build();
+        Gauge.builder("pdf.events.streams", this, PDFJobEventNotifier::getOpenStreams).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for one PDF. It starts with the current state and is
+     * completed once the PDF is done or has failed.
+     */
+    public SseEmitter subscribe(long pdfId) throws Exception {
+        // Registered before the state is read, so a change in between is not lost
+        SseEmitter emitter = register(pdfStreams, pdfId);
+        PDFJobEventResponse current;
+        try {
+            current = pdfService.getJobStatus(pdfId);
+        } catch (Exception e) {
+            unregister(pdfStreams, pdfId, emitter);
+            throw e;
+        }
+        sender.execute(() -> {
+            send(emitter, current);
+            if (current.getState().isTerminal()) {
+                unregister(pdfStreams, pdfId, emitter);
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Opens a stream of all job events of a user, starting with the user's
+     * pending PDFs.
+     */
+    public SseEmitter subscribeUser(String userId) {
+        SseEmitter emitter = register(userStreams, userId);
+        List<PDFJobEventResponse> pending = pdfService.getPendingJobs(userId);
+        sender.execute(() -> pending.forEach(event -> send(emitter, event)));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStateChanged(PDFJobStateChangedEvent event) {
+        sender.execute(() -> dispatch(event));
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.events.sweep-interval:5s}")
+    public void sweep() {
+        Set<Long> pdfIds = Set.copyOf(pdfStreams.keySet());
+        Set<String> userIds = Set.copyOf(userStreams.keySet());
+        if (pdfIds.isEmpty() && userIds.isEmpty()) {
+            lastSweep = LocalDateTime.now();
+            return;
+        }
+        LocalDateTime since = lastSweep.minus(SWEEP_OVERLAP);
+        lastSweep = LocalDateTime.now();
+        try {
+            List<PDFStatusView> changed = new ArrayList<>();
+            if (!pdfIds.isEmpty()) {
+                changed.addAll(repository.findStatusViewsByIdInAndStatusNot(pdfIds, PDFStatus.PROCESSING));
+            }
+            if (!userIds.isEmpty()) {
+                changed.addAll(repository.findStatusViewsByUserIdInAndUpdatedAtAfter(userIds, since));
+            }
+            for (PDFStatusView view : changed) {
+                if (view.getStatus() != null && view.getStatus() != PDFStatus.PROCESSING) {
+                    PDFJobStateChangedEvent event = PDFJobStateChangedEvent.of(view,
+                            PDFJobState.of(view.getStatus()));
+                    sender.execute(() -> dispatch(event));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Sweep for job events failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.events.heartbeat-interval:15s}")
+    public void heartbeat() {
+        sender.execute(() -> {
+            pdfStreams.forEach((pdfId, emitters) -> emitters.forEach(this::ping));
+            userStreams.forEach((userId, emitters) -> emitters.forEach(this::ping));
+        });
+    }
+
+    public int getOpenStreams() {
+        return pdfStreams.values().stream().mapToInt(Set::size).sum()
+                + userStreams.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        pdfStreams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        userStreams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    private void dispatch(PDFJobStateChangedEvent event) {
+        if (delivered.asMap().put(event.pdfId(), event.state()) == event.state()) {
+            return;
+        }
+        PDFJobEventResponse response = event.toResponse();
+        Set<SseEmitter> forPdf = event.state().isTerminal()
+                ? pdfStreams.remove(event.pdfId())
+                : pdfStreams.get(event.pdfId());
+        if (forPdf != null) {
+            for (SseEmitter emitter : forPdf) {
+                send(emitter, response);
+                if (event.state().isTerminal()) {
+                    emitter.complete();
+                }
+            }
+        }
+        Set<SseEmitter> forUser = event.userId() != null ? userStreams.get(event.userId()) : null;
+        if (forUser != null) {
+            forUser.forEach(emitter -> send(emitter, response));
+        }
+        log.debug("Job event dispatched: pdfId={}, state={}, pdfStreams={}, userStreams={}", event.pdfId(),
+                event.state(), forPdf != null ? forPdf.size() : 0, forUser != null ? forUser.size() : 0);
+    }
+
+    private void send(SseEmitter emitter, PDFJobEventResponse event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getState().getEventName())
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; the completion callback unregisters it
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void ping(SseEmitter emitter) {
+        try {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private <K> SseEmitter register(Map<K, Set<SseEmitter>> streams, K key) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        streams.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable cleanup = () -> unregister(streams, key, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+        return emitter;
+    }
+
+    private <K> void unregister(Map<K, Set<SseEmitter>> streams, K key, SseEmitter emitter) {
+        streams.computeIfPresent(key, (k, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
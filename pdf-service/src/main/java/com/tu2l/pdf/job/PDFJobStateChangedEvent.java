@@ -0,0 +1,29 @@
+package com.tu2l.pdf.job;
+
+import com.tu2l.pdf.model.projection.PDFStatusView;
+import com.tu2l.pdf.model.response.PDFJobEventResponse;
+import com.tu2l.pdf.model.states.PDFJobState;
+
+/**
+ * Published when an asynchronous PDF changes state. Listeners that need the
+ * change to be visible to other readers subscribe after commit.
+ */
+public record PDFJobStateChangedEvent(long pdfId, String userId, PDFJobState state, Long sizeBytes,
+        String message) {
+
+    public static PDFJobStateChangedEvent of(PDFStatusView view, PDFJobState state) {
+        return new PDFJobStateChangedEvent(view.getId(), view.getUserId(), state,
+                state == PDFJobState.DONE ? view.getSizeBytes() : null,
+                state == PDFJobState.FAILED ? view.getErrorMessage() : null);
+    }
+
+    public PDFJobEventResponse toResponse() {
+        PDFJobEventResponse response = new PDFJobEventResponse();
+        response.setId(String.valueOf(pdfId));
+        response.setState(state);
+        response.setStatus(state.toResponseStatus());
+        response.setSizeBytes(sizeBytes);
+        response.setMessage(message);
+        return response;
+    }
+}
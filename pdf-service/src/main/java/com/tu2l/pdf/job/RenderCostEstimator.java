@@ -0,0 +1,179 @@
+package com.tu2l.pdf.job;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Estimates how long a render job will take from features that are cheap to
+ * read at submission: the decoded size of the HTML, the requested page count
+ * and the number of {@code <img>} and {@code <table>} tags.
+ * <p>
+ * The estimate is a linear model fitted by recursive least squares to the
+ * render times this instance observes, starting from a rough prior. Older
+ * observations are slowly forgotten, so the model follows changes in engine,
+ * fonts or hardware.
+ */
+@Slf4j
+@Component
+public class RenderCostEstimator {
+    private static final int FEATURES = 5;
+    private static final double[] PRIOR_MILLIS = { 300, 10, 150, 40, 25 };
+    private static final double INITIAL_VARIANCE = 1_000;
+    private static final double MAX_VARIANCE = 1e9;
+    private static final double FORGETTING_FACTOR = 0.999;
+    private static final double BYTES_PER_KIB = 1024;
+    private static final int MAX_TAG_NAME = 5;
+
+    private final double[] weights = PRIOR_MILLIS.clone();
+    private final double[][] covariance = new double[FEATURES][FEATURES];
+    private final Counter observations;
+
+    public RenderCostEstimator(MeterRegistry meterRegistry) {
+        this.observations = Counter.builder("pdf.jobs.cost.observations").register(meterRegistry);
+        resetCovariance();
+    }
+
+    /**
+     * What a job's cost is estimated from, stored with the job so that its
+     * render time can be learned from once it completes.
+     */
+    public record Features(long contentBytes, int pages, int images, int tables) {
+    }
+
+    /**
+     * Reads the features of a request. Tags are counted while streaming the
+     * content through a plain base64 decoder: it is not sanitized here, as
+     * only the render needs that. Content that cannot be decoded counts no
+     * tags, and its render fails later.
+     */
+    public Features features(GenerateAndSavePDFRequest request) {
+        int pages = Math.max(1, request.getNumberOfPages());
+        if (request.getContent() == null) {
+            // A template's output is not known before rendering; its data is a rough stand-in
+            String data = request.getData() == null ? "" : request.getData().toString();
+            return new Features(data.length(), pages, 0, 0);
+        }
+        String content = request.getContent();
+        long contentBytes = decodedLength(content);
+        int[] tags = { 0, 0 };
+        try (Reader html = new InputStreamReader(Base64.getDecoder().wrap(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1))), StandardCharsets.UTF_8)) {
+            countTags(html, tags);
+        } catch (IOException e) {
+            log.debug("Could not read content for cost features: {}", e.getMessage());
+        }
+        return new Features(contentBytes, pages, tags[0], tags[1]);
+    }
+
+    public synchronized long estimateMillis(Features features) {
+        return Math.max(1, Math.round(dot(weights, vector(features))));
+    }
+
+    /**
+     * Updates the model with the render time of a job with the given features.
+     */
+    public synchronized void observe(Features features, Duration renderTime) {
+        double[] x = vector(features);
+        double[] px = multiply(covariance, x);
+        double gainDenominator = FORGETTING_FACTOR + dot(x, px);
+        double error = renderTime.toNanos() / 1e6 - dot(weights, x);
+        for (int i = 0; i < FEATURES; i++) {
+            weights[i] += px[i] / gainDenominator * error;
+        }
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                covariance[i][j] = (covariance[i][j] - px[i] * px[j] / gainDenominator) / FORGETTING_FACTOR;
+            }
+        }
+        // Forgetting inflates the variance of features that never change; start over before it overflows
+        for (int i = 0; i < FEATURES; i++) {
+            if (covariance[i][i] > MAX_VARIANCE) {
+                resetCovariance();
+                break;
+            }
+        }
+        observations.increment();
+        log.debug("Render cost observed: features={}, renderMillis={}, error={}ms", features,
+                renderTime.toMillis(), Math.round(error));
+    }
+
+    private void resetCovariance() {
+        for (int i = 0; i < FEATURES; i++) {
+            for (int j = 0; j < FEATURES; j++) {
+                covariance[i][j] = i == j ? INITIAL_VARIANCE : 0;
+            }
+        }
+    }
+
+    private static double[] vector(Features features) {
+        return new double[] { 1, features.contentBytes() / BYTES_PER_KIB, features.pages(), features.images(),
+                features.tables() };
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double[] multiply(double[][] matrix, double[] vector) {
+        double[] result = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            result[i] = dot(matrix[i], vector);
+        }
+        return result;
+    }
+
+    // Exact size of the decoded base64, without decoding it
+    private static long decodedLength(String base64) {
+        int length = base64.length();
+        int padding = 0;
+        while (padding < 2 && padding < length && base64.charAt(length - 1 - padding) == '=') {
+            padding++;
+        }
+        return length / 4L * 3 - padding;
+    }
+
+    // Counts <img and <table start tags, case-insensitively: tags[0] images, tags[1] tables
+    private static void countTags(Reader html, int[] tags) throws IOException {
+        char[] buffer = new char[8192];
+        char[] name = new char[MAX_TAG_NAME + 1];
+        int nameLength = -1; // -1 outside a tag name
+        int read;
+        while ((read = html.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (c == '<') {
+                    nameLength = 0;
+                } else if (nameLength >= 0) {
+                    if (Character.isLetter(c) && nameLength < name.length) {
+                        name[nameLength++] = Character.toLowerCase(c);
+                    } else {
+                        String tag = new String(name, 0, nameLength);
+                        if (tag.equals("img")) {
+                            tags[0]++;
+                        } else if (tag.equals("table")) {
+                            tags[1]++;
+                        }
+                        nameLength = -1;
+                    }
+                }
+            }
+        }
+    }
+}
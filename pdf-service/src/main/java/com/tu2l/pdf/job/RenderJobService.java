@@ -0,0 +1,334 @@
+package com.tu2l.pdf.job;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.RenderJobEntity;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.model.states.PDFJobState;
+import com.tu2l.pdf.model.states.RenderJobStatus;
+import com.tu2l.pdf.repository.PDFRepository;
+import com.tu2l.pdf.repository.RenderJobRepository;
+import com.tu2l.pdf.storage.PDFContentReferences;
+import com.tu2l.pdf.util.ClaimQueries;
+import com.tu2l.pdf.util.RetryBackoff;
+import com.tu2l.pdf.webhook.WebhookDeliveryService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Durable queue of background renders in {@code pdf_render_jobs}.
+ * <p>
+ * Workers on any number of instances claim due jobs with a single
+ * {@code UPDATE ... RETURNING} that takes a time-limited lease. On PostgreSQL
+ * the candidate rows are selected {@code FOR UPDATE SKIP LOCKED}, so concurrent
+ * claimers skip each other's rows instead of queueing behind them; SQLite
+ * serialises writers, which makes the same statement atomic there. A job whose
+ * lease runs out, because its worker died or was redeployed, becomes claimable
+ * again.
+ * <p>
+ * With {@code pdf.jobs.fair-share.enabled} claims are shared between users by
+ * weighted fair queueing: each job is stamped with a virtual finish time when
+ * queued, advancing by its estimated cost divided by the user's weight, and
+ * due jobs are claimed in tag order. Users with jobs queued are served in
+ * turn, in proportion to their weight in render time, however long anyone's
+ * backlog is; cheap jobs come before expensive ones queued around the same
+ * time. With costs estimated, each user's own queued jobs are kept cheapest
+ * first: a new job takes the place of the user's first costlier job, and the
+ * costlier jobs move back by the new job's share, but by no more than
+ * {@code agingFactor} times their own share in all, so none waits forever.
+ * Without fair share, {@code pdf.jobs.cost.enabled} orders jobs by submission
+ * time pushed back by their estimated cost, shortest job first with aging.
+ * The ordering lives in the table, so it holds across instances.
+ */
+@Slf4j
+@Service
+public class RenderJobService {
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+    private static final TypeReference<Map<String, Object>> TEMPLATE_DATA_TYPE = new TypeReference<>() {
+    };
+    private static final String CLAIM_SQL = "update pdf_render_jobs set status = 'RUNNING', lease_owner = ?, "
+            + "lease_expires_at = ?, attempts = attempts + 1 where id in (select id from pdf_render_jobs "
+            + "where (status = 'QUEUED' and next_attempt_at <= ?) or (status = 'RUNNING' and lease_expires_at < ?) "
+            + "order by %s limit ?%s) returning id";
+    // Tag of the user's last active job, and the lowest active tag as the current virtual time
+    private static final String SHARE_TAGS_SQL = "select coalesce(max(case when user_id = ? then share_tag end), 0), "
+            + "coalesce(min(share_tag), 0) from pdf_render_jobs where status in ('QUEUED', 'RUNNING')";
+    // Moves a user's queued jobs costing more than a new one back by its share, unless that would
+    // take them past their aging limit. One statement, so that concurrent enqueues of the same
+    // user wait on each other's rows instead of both taking the slot of the same job
+    private static final String DEFER_COSTLIER_SQL = "update pdf_render_jobs set share_tag = share_tag + ? "
+            + "where user_id = ? and status = 'QUEUED' and estimated_cost_millis > ? "
+            + "and share_tag + ? <= max_share_tag returning share_tag, estimated_cost_millis";
+    private static final String FIFO_ORDER = "next_attempt_at, id";
+    private static final String COST_ORDER = "next_attempt_at + coalesce(estimated_cost_millis, 0) * %d, id";
+    private static final String FAIR_SHARE_ORDER = "coalesce(share_tag, 0), id";
+    private static final long SHARE_TAG_PER_MILLI = 1_000L;
+    // Cost of every job when costs are not estimated, so that fair share counts jobs
+    private static final long UNIT_COST_MILLIS = 1_000L;
+
+    private final RenderJobRepository jobRepository;
+    private final PDFRepository pdfRepository;
+    private final PDFContentReferences contentReferences;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final WebhookDeliveryService webhookDeliveries;
+    private final JsonMapper jsonMapper;
+    private final PDFServiceProperties.Jobs settings;
+    private final RenderCostEstimator costEstimator;
+    private String claimSql;
+
+    public RenderJobService(RenderJobRepository jobRepository, PDFRepository pdfRepository,
+                            PDFContentReferences contentReferences, JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher, WebhookDeliveryService webhookDeliveries,
+                            JsonMapper jsonMapper, PDFServiceProperties properties,
+                            RenderCostEstimator costEstimator) {
+        this.jobRepository = jobRepository;
+        this.pdfRepository = pdfRepository;
+        this.contentReferences = contentReferences;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.webhookDeliveries = webhookDeliveries;
+        this.jsonMapper = jsonMapper;
+        this.settings = properties.getJobs();
+        this.costEstimator = costEstimator;
+    }
+
+    @PostConstruct
+    void prepareClaimQuery() {
+        String lockingClause = ClaimQueries.lockingClause(jdbcTemplate);
+        String order = settings.getFairShare().isEnabled() ? FAIR_SHARE_ORDER
+                : settings.getCost().isEnabled() ? COST_ORDER.formatted(agingFactor())
+                : FIFO_ORDER;
+        claimSql = CLAIM_SQL.formatted(order, lockingClause);
+        log.debug("Render job claims prepared: skipLocked={}, order={}", !lockingClause.isEmpty(), order);
+    }
+
+    /**
+     * Queues a render of the given PDF row. Call within the transaction that
+     * saves the row so that neither exists without the other.
+     *
+     * @param userRole role of the submitting user, which sets the job's
+     *                 fair-share weight; may be null
+     */
+    @Transactional
+    public RenderJobEntity enqueue(long pdfId, GenerateAndSavePDFRequest pdfRequest, String userRole) {
+        RenderJobEntity job = new RenderJobEntity();
+        job.setPdfId(pdfId);
+        job.setUserId(pdfRequest.getUserId());
+        long costMillis = UNIT_COST_MILLIS;
+        if (settings.getCost().isEnabled()) {
+            RenderCostEstimator.Features features = costEstimator.features(pdfRequest);
+            costMillis = costEstimator.estimateMillis(features);
+            job.setContentBytes(features.contentBytes());
+            job.setImageCount(features.images());
+            job.setTableCount(features.tables());
+            job.setEstimatedCostMillis(costMillis);
+        }
+        if (settings.getFairShare().isEnabled()) {
+            assignShareTag(job, userRole, costMillis);
+        }
+        job.setStatus(RenderJobStatus.QUEUED);
+        job.setContent(pdfRequest.getContent());
+        job.setTemplateId(pdfRequest.getTemplateId());
+        if (pdfRequest.getData() != null) {
+            job.setTemplateData(jsonMapper.writeValueAsString(pdfRequest.getData()));
+        }
+        job.setRenderTimeoutSeconds(pdfRequest.getRenderTimeoutSeconds());
+        job.setCallbackUrl(pdfRequest.getCallbackUrl());
+        job.setMaxAttempts(Math.max(1, settings.getMaxAttempts()));
+        job.setNextAttemptAt(System.currentTimeMillis());
+        RenderJobEntity saved = jobRepository.save(job);
+        publish(saved, PDFJobState.QUEUED, null, null);
+        log.debug("Render job queued: jobId={}, pdfId={}, estimatedCostMillis={}", saved.getId(), pdfId,
+                saved.getEstimatedCostMillis());
+        return saved;
+    }
+
+    /**
+     * Leases up to {@code limit} due jobs to {@code owner}, including jobs whose
+     * previous lease expired.
+     */
+    public List<RenderJobEntity> claim(String owner, int limit) {
+        long now = System.currentTimeMillis();
+        List<Long> ids = jdbcTemplate.queryForList(claimSql, Long.class, owner,
+                now + settings.getLeaseDuration().toMillis(), now, now, limit);
+        return ids.isEmpty() ? List.of() : jobRepository.findAllById(ids);
+    }
+
+    /**
+     * Rebuilds the render request from the job and its PDF row.
+     *
+     * @return empty if the PDF was deleted after the job was queued
+     */
+    public Optional<GeneratePDFRequest> requestFor(RenderJobEntity job) {
+        return pdfRepository.findById(job.getPdfId()).map(pdf -> {
+            GeneratePDFRequest request = new GeneratePDFRequest();
+            request.setContent(job.getContent());
+            request.setTemplateId(job.getTemplateId());
+            if (job.getTemplateData() != null) {
+                request.setData(jsonMapper.readValue(job.getTemplateData(), TEMPLATE_DATA_TYPE));
+            }
+            request.setFileName(pdf.getFileName());
+            request.setNumberOfPages(pdf.getNumberOfPages());
+            request.setRenderTimeoutSeconds(job.getRenderTimeoutSeconds());
+            return request;
+        });
+    }
+
+    /**
+     * Announces that a claimed job has started rendering.
+     */
+    public void started(RenderJobEntity job) {
+        publish(job, PDFJobState.RENDERING, null, null);
+    }
+
+    /**
+     * Stores the rendered PDF and removes the job, provided {@code owner} still
+     * holds its lease.
+     *
+     * @return {@code false} if the lease was lost and the result was discarded
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public boolean complete(RenderJobEntity job, String owner, RenderedPDF rendered) throws IOException {
+        if (jobRepository.deleteClaimed(job.getId(), owner) == 0) {
+            log.warn("Discarded render of job that is no longer leased to this worker: jobId={}", job.getId());
+            return false;
+        }
+        contentReferences.acquire(rendered.contentHash(), rendered.content());
+        int updated = pdfRepository.markSucceeded(job.getPdfId(), rendered.contentHash(),
+                rendered.content().length, LocalDateTime.now());
+        if (updated == 0) {
+            // The PDF was deleted while it was being generated
+            contentReferences.release(rendered.contentHash());
+            log.info("Discarded render of PDF deleted during generation: pdfId={}", job.getPdfId());
+        } else {
+            publish(job, PDFJobState.DONE, (long) rendered.content().length, null);
+        }
+        return true;
+    }
+
+    /**
+     * Schedules another attempt with exponential backoff, or marks the job and
+     * its PDF as failed once attempts are exhausted or {@code retryable} is
+     * false.
+     *
+     * @return {@code true} if the job was rescheduled
+     */
+    @Transactional
+    public boolean fail(RenderJobEntity job, String owner, String error, boolean retryable) {
+        String message = truncate(String.valueOf(error));
+        if (retryable && job.getAttempts() < job.getMaxAttempts()) {
+            long nextAttemptAt = System.currentTimeMillis() + RetryBackoff.delay(settings.getRetryBackoff(),
+                    settings.getMaxRetryBackoff(), job.getAttempts()).toMillis();
+            if (jobRepository.reschedule(job.getId(), owner, nextAttemptAt, message) == 0) {
+                return false;
+            }
+            publish(job, PDFJobState.QUEUED, null, message);
+            return true;
+        }
+        if (jobRepository.markFailed(job.getId(), owner, message) > 0
+                && pdfRepository.markFailed(job.getPdfId(), message, LocalDateTime.now()) > 0) {
+            publish(job, PDFJobState.FAILED, null, message);
+        }
+        return false;
+    }
+
+    public void extendLeases(Collection<Long> jobIds, String owner) {
+        if (!jobIds.isEmpty()) {
+            jobRepository.extendLeases(jobIds, owner,
+                    System.currentTimeMillis() + settings.getLeaseDuration().toMillis());
+        }
+    }
+
+    public int requeue(Collection<Long> jobIds, String owner) {
+        return jobIds.isEmpty() ? 0 : jobRepository.requeue(jobIds, owner, System.currentTimeMillis());
+    }
+
+    public boolean isRendering(long pdfId) {
+        return jobRepository.findStatusesByPdfId(pdfId).contains(RenderJobStatus.RUNNING);
+    }
+
+    /**
+     * Drops the jobs of a PDF being deleted. A worker still rendering it finds
+     * its job gone and discards the result.
+     */
+    @Transactional
+    public int cancel(long pdfId) {
+        return jobRepository.deleteByPdfId(pdfId);
+    }
+
+    private void publish(RenderJobEntity job, PDFJobState state, Long sizeBytes, String message) {
+        PDFJobStateChangedEvent event = new PDFJobStateChangedEvent(job.getPdfId(), job.getUserId(), state,
+                sizeBytes, message);
+        if (state.isTerminal() && job.getCallbackUrl() != null) {
+            // Part of the transaction that finishes the job, so the callback cannot be lost
+            webhookDeliveries.enqueue(job.getCallbackUrl(), job.getPdfId(), event.toResponse());
+        }
+        eventPublisher.publishEvent(event);
+    }
+
+    /**
+     * Finish tag of a new job: its cost in virtual time, divided by the user's
+     * weight, after the user's last active job or the current virtual time,
+     * whichever is later. An idle user thus starts level with the queue
+     * instead of with credit saved up, and a cheap job overtakes expensive
+     * jobs of other users that were queued shortly before it. A job cheaper
+     * than some of the user's queued jobs starts where the first of them that
+     * can still be deferred started, and those are deferred by its share. A
+     * job is deferred until its tag reaches {@code agingFactor} times its own
+     * share past the tag it was queued with.
+     */
+    private void assignShareTag(RenderJobEntity job, String userRole, long costMillis) {
+        PDFServiceProperties.FairShare fairShare = settings.getFairShare();
+        Integer roleWeight = userRole == null ? null
+                : fairShare.getRoleWeights().get(userRole.toUpperCase(Locale.ROOT));
+        int weight = Math.max(1, roleWeight != null ? roleWeight : fairShare.getDefaultWeight());
+        long share = shareOf(costMillis, weight);
+        Long costlierStart = null;
+        if (settings.getCost().isEnabled()) {
+            costlierStart = jdbcTemplate.query(DEFER_COSTLIER_SQL, rs -> {
+                Long start = null;
+                while (rs.next()) {
+                    // Where the deferred job started before it was moved back
+                    long moved = rs.getLong(1) - share - shareOf(rs.getLong(2), weight);
+                    start = start == null ? moved : Math.min(start, moved);
+                }
+                return start;
+            }, share, job.getUserId(), costMillis, share);
+        }
+        long start = costlierStart != null ? costlierStart
+                : jdbcTemplate.queryForObject(SHARE_TAGS_SQL,
+                        (rs, rowNum) -> Math.max(rs.getLong(1), rs.getLong(2)), job.getUserId());
+        job.setShareTag(start + share);
+        job.setMaxShareTag(start + share + agingFactor() * share);
+    }
+
+    private int agingFactor() {
+        return Math.max(0, settings.getCost().getAgingFactor());
+    }
+
+    private static long shareOf(long costMillis, int weight) {
+        return Math.max(1, costMillis * SHARE_TAG_PER_MILLI / weight);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_MESSAGE_LENGTH ? message : message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+}
@@ -0,0 +1,227 @@
+package com.tu2l.pdf.job;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.tu2l.pdf.admission.AdmissionController;
+import com.tu2l.pdf.admission.RenderLane;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.RenderJobEntity;
+import com.tu2l.pdf.exception.PDFNotFoundException;
+import com.tu2l.pdf.exception.PDFTemplateException;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.model.states.PDFJobState;
+import com.tu2l.pdf.service.impl.PDFRenderer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Claims render jobs from {@link RenderJobService} and runs them on a fixed
+ * pool of {@code pdf.jobs.concurrency} threads. Only as many jobs are claimed
+ * as there are idle threads, so work this instance cannot start stays in the
+ * queue for other instances. Renders go through the background admission lane
+ * and so share the render limit with interactive requests, apart from the
+ * slots reserved for those. Which jobs are claimed is decided per user by
+ * {@link RenderJobService#claim}. With
+ * {@code spring.threads.virtual.enabled} the job threads are virtual and, by
+ * default, twice as many jobs as background render slots are taken on, so that decoding
+ * and storing one job overlaps with rendering another.
+ * <p>
+ * Leases of running jobs are renewed from the poll loop. On shutdown running
+ * jobs get a short grace period; any still leased afterwards are handed back
+ * to the queue without counting the attempt.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pdf.jobs", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RenderJobWorker {
+    private static final Duration SHUTDOWN_GRACE_PERIOD = Duration.ofSeconds(20);
+    private static final String THREAD_NAME_PREFIX = "pdf-render-job-";
+
+    private final RenderJobService jobService;
+    private final PDFRenderer renderer;
+    private final RenderCostEstimator costEstimator;
+    private final String workerId = newWorkerId();
+    private final int concurrency;
+    private final long heartbeatIntervalMillis;
+    private final ExecutorService executor;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    // Held across database calls, so a lock rather than a monitor
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private final Counter succeeded;
+    private final Counter retried;
+    private final Counter failed;
+    private volatile boolean stopping;
+    private long lastHeartbeat;
+
+    public RenderJobWorker(RenderJobService jobService, PDFRenderer renderer, RenderCostEstimator costEstimator,
+                           PDFServiceProperties properties, AdmissionController admissionController,
+                           MeterRegistry meterRegistry, Environment environment) {
+        PDFServiceProperties.Jobs settings = properties.getJobs();
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+        this.jobService = jobService;
+        this.renderer = renderer;
+        this.costEstimator = costEstimator;
+        this.concurrency = settings.getConcurrency() > 0 ? settings.getConcurrency()
+                : admissionController.getMaxBackgroundRenders() * (virtualThreads ? 2 : 1);
+        this.heartbeatIntervalMillis = settings.getLeaseDuration().toMillis() / 3;
+        this.executor = Executors.newFixedThreadPool(concurrency, virtualThreads
+                ? new VirtualThreadTaskExecutor(THREAD_NAME_PREFIX).getVirtualThreadFactory()
+                : platformThreadFactory());
+
+        Gauge.builder("pdf.jobs.running", running, Set::size).register(meterRegistry);
+        this.succeeded = Counter.builder("pdf.jobs.completed").tag("result", "succeeded").register(meterRegistry);
+        this.retried = Counter.builder("pdf.jobs.completed").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("pdf.jobs.completed").tag("result", "failed").register(meterRegistry);
+        log.info("Render job worker started: workerId={}, concurrency={}, virtualThreads={}", workerId, concurrency,
+                virtualThreads);
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.jobs.poll-interval:1s}")
+    public void poll() {
+        if (stopping) {
+            return;
+        }
+        pollLock.lock();
+        try {
+            renewLeases();
+            int idle = concurrency - running.size();
+            if (idle <= 0) {
+                return;
+            }
+            List<RenderJobEntity> jobs = jobService.claim(workerId, idle);
+            for (RenderJobEntity job : jobs) {
+                running.add(job.getId());
+                executor.execute(() -> run(job));
+            }
+        } catch (RuntimeException e) {
+            log.error("Polling for render jobs failed: {}", e.getMessage(), e);
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    // Claims a job queued on this instance right after commit instead of at the next poll. Checked here rather
+    // than in a listener condition, which after commit only sees the event wrapped as a PayloadApplicationEvent
+    @Async
+    @TransactionalEventListener
+    public void onJobQueued(PDFJobStateChangedEvent event) {
+        if (event.state() == PDFJobState.QUEUED) {
+            poll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_GRACE_PERIOD.toMillis(), TimeUnit.MILLISECONDS)) {
+            executor.shutdownNow();
+        }
+        int requeued = jobService.requeue(Set.copyOf(running), workerId);
+        log.info("Render job worker stopped: workerId={}, requeued={}", workerId, requeued);
+    }
+
+    private void run(RenderJobEntity job) {
+        try {
+            if (job.getAttempts() > job.getMaxAttempts()) {
+                // Claimed again after its lease expired on every attempt, e.g. a
+                // render that keeps crashing the instance
+                jobService.fail(job, workerId, "Render job lease expired after " + job.getMaxAttempts()
+                        + " attempts", false);
+                failed.increment();
+                return;
+            }
+            GeneratePDFRequest request = jobService.requestFor(job).orElse(null);
+            if (request == null) {
+                jobService.cancel(job.getPdfId());
+                log.info("Dropped render job of deleted PDF: jobId={}, pdfId={}", job.getId(), job.getPdfId());
+                return;
+            }
+            log.info("Processing render job: jobId={}, pdfId={}, attempt={}/{}, thread={}", job.getId(),
+                    job.getPdfId(), job.getAttempts(), job.getMaxAttempts(), Thread.currentThread().getName());
+            jobService.started(job);
+            RenderedPDF rendered = renderer.render(request, RenderLane.BACKGROUND);
+            if (rendered.renderTime() != null && job.getEstimatedCostMillis() != null) {
+                costEstimator.observe(new RenderCostEstimator.Features(job.getContentBytes(),
+                        request.getNumberOfPages(), job.getImageCount(), job.getTableCount()), rendered.renderTime());
+            }
+            if (jobService.complete(job, workerId, rendered)) {
+                succeeded.increment();
+                log.info("Render job completed: jobId={}, pdfId={}", job.getId(), job.getPdfId());
+            }
+        } catch (Exception e) {
+            handleFailure(job, e);
+        } finally {
+            running.remove(job.getId());
+        }
+    }
+
+    private void handleFailure(RenderJobEntity job, Exception error) {
+        if (stopping && error instanceof InterruptedException) {
+            // Interrupted by shutdown, not a failed attempt
+            jobService.requeue(Set.of(job.getId()), workerId);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Undecodable input, a deleted template or data it cannot render fail the same way on every attempt
+        boolean retryable = !(error instanceof IllegalArgumentException || error instanceof PDFNotFoundException
+                || error instanceof PDFTemplateException);
+        try {
+            if (jobService.fail(job, workerId, error.getMessage(), retryable)) {
+                retried.increment();
+                log.warn("Render job failed, retry scheduled: jobId={}, attempt={}/{}, error={}", job.getId(),
+                        job.getAttempts(), job.getMaxAttempts(), error.getMessage());
+            } else {
+                failed.increment();
+                log.error("Render job failed: jobId={}, pdfId={}, attempts={}, error={}", job.getId(),
+                        job.getPdfId(), job.getAttempts(), error.getMessage(), error);
+            }
+        } catch (RuntimeException e) {
+            // The lease expires and another attempt picks the job up
+            log.error("Recording failure of render job {} failed: {}", job.getId(), e.getMessage(), e);
+        }
+    }
+
+    private void renewLeases() {
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat < heartbeatIntervalMillis) {
+            return;
+        }
+        lastHeartbeat = now;
+        jobService.extendLeases(Set.copyOf(running), workerId);
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+    }
+
+    private static String newWorkerId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "localhost");
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
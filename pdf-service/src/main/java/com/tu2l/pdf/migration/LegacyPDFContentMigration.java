@@ -0,0 +1,265 @@
+package com.tu2l.pdf.migration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tu2l.pdf.model.states.PDFStatus;
+import com.tu2l.pdf.storage.PDFContentReferences;
+import com.tu2l.pdf.util.ContentDigest;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves PDFs stored as base64 in the legacy {@code generated_pdfs.encoded_pdf}
+ * column into the content store.
+ * <p>
+ * The column is no longer mapped, so on start-up its NOT NULL constraint is
+ * dropped before the first insert can hit it. Rows are then migrated one at a
+ * time in the background after the application is ready, and the column is
+ * dropped once it is empty. A row that is read before the background pass
+ * reaches it is migrated on demand through {@link #migrateRow(long)}.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+public class LegacyPDFContentMigration {
+    static final String LEGACY_PLACEHOLDER = "PDF content placeholder";
+    private static final String TABLE = "generated_pdfs";
+    private static final String LEGACY_COLUMN = "encoded_pdf";
+    private static final int BATCH_SIZE = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PDFContentReferences contentReferences;
+    private final TransactionTemplate transactionTemplate;
+    // Not synchronized, so that virtual request threads waiting here do not pin their carriers
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean legacyColumnPresent;
+
+    public LegacyPDFContentMigration(JdbcTemplate jdbcTemplate, PDFContentReferences contentReferences,
+                                     PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contentReferences = contentReferences;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void prepareSchema() {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(null, null, TABLE, LEGACY_COLUMN)) {
+                if (!columns.next()) {
+                    return null;
+                }
+                legacyColumnPresent = true;
+                if ("NO".equals(columns.getString("IS_NULLABLE"))) {
+                    relaxNotNull(connection, metaData.getDatabaseProductName());
+                }
+            }
+            return null;
+        });
+        if (legacyColumnPresent) {
+            log.info("Legacy column {}.{} found, PDF content will be migrated in the background", TABLE,
+                    LEGACY_COLUMN);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateInBackground() {
+        if (!legacyColumnPresent) {
+            return;
+        }
+        long lastId = 0;
+        int migrated = 0;
+        try {
+            List<Long> ids;
+            while (!(ids = nextBatch(lastId)).isEmpty()) {
+                for (Long id : ids) {
+                    if (migrateRow(id)) {
+                        migrated++;
+                    }
+                    lastId = id;
+                }
+            }
+            dropLegacyColumn();
+            log.info("Legacy PDF content migration completed: migratedRows={}", migrated);
+        } catch (DataAccessException | UncheckedIOException e) {
+            log.error("Legacy PDF content migration stopped after {} rows, it will resume on next start: {}",
+                    migrated, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Migrates a single row if it still holds legacy content.
+     *
+     * @return {@code true} if the row was migrated by this call
+     */
+    public boolean migrateRow(long id) {
+        if (!legacyColumnPresent) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return migrateLocked(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean migrateLocked(long id) {
+        if (!legacyColumnPresent) {
+            return false;
+        }
+        String encodedPdf = jdbcTemplate.query("select " + LEGACY_COLUMN + " from " + TABLE + " where id = ?",
+                rs -> rs.next() ? rs.getString(1) : null, id);
+        if (encodedPdf == null) {
+            return false;
+        }
+        if (LEGACY_PLACEHOLDER.equals(encodedPdf)) {
+            // Asynchronous generation that never completed; its worker is gone
+            return markFailed(id, "PDF generation did not complete");
+        }
+
+        byte[] content;
+        try {
+            content = Base64.getDecoder().decode(encodedPdf);
+        } catch (IllegalArgumentException e) {
+            return markFailed(id, "Stored PDF content is not valid base64");
+        }
+        String contentHash = ContentDigest.sha256Hex(content);
+        // The reference and the row's content hash commit together, so a crash in
+        // between cannot count the row's content twice when it is migrated again
+        boolean migrated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update("update " + TABLE + " set status = ?, content_hash = ?, "
+                    + "size_bytes = ?, " + LEGACY_COLUMN + " = null where id = ? and " + LEGACY_COLUMN + " is not null",
+                    PDFStatus.SUCCESS.name(), contentHash, content.length, id);
+            if (updated == 0) {
+                // Row deleted meanwhile
+                return false;
+            }
+            try {
+                contentReferences.acquire(contentHash, content);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to store migrated PDF content for id " + id, e);
+            }
+            return true;
+        }));
+        if (!migrated) {
+            return false;
+        }
+        log.debug("Migrated legacy PDF content: id={}, size={} bytes", id, content.length);
+        return true;
+    }
+
+    private List<Long> nextBatch(long afterId) {
+        return jdbcTemplate.queryForList("select id from " + TABLE + " where id > ? and " + LEGACY_COLUMN
+                + " is not null order by id limit " + BATCH_SIZE, Long.class, afterId);
+    }
+
+    private boolean markFailed(long id, String errorMessage) {
+        log.warn("Legacy PDF row could not be migrated: id={}, reason={}", id, errorMessage);
+        return jdbcTemplate.update("update " + TABLE + " set status = ?, error_message = ?, " + LEGACY_COLUMN
+                + " = null where id = ? and " + LEGACY_COLUMN + " is not null",
+                PDFStatus.FAILED.name(), errorMessage, id) > 0;
+    }
+
+    private void dropLegacyColumn() {
+        lock.lock();
+        try {
+            dropIfEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dropIfEmpty() {
+        Integer remaining = jdbcTemplate.queryForObject("select count(*) from " + TABLE + " where "
+                + LEGACY_COLUMN + " is not null", Integer.class);
+        if (remaining == null || remaining > 0) {
+            log.warn("Legacy column {}.{} still holds {} rows, keeping it", TABLE, LEGACY_COLUMN, remaining);
+            return;
+        }
+        legacyColumnPresent = false;
+        try {
+            jdbcTemplate.execute("alter table " + TABLE + " drop column " + LEGACY_COLUMN);
+            log.info("Dropped legacy column {}.{}", TABLE, LEGACY_COLUMN);
+        } catch (DataAccessException e) {
+            // Harmless: the column is empty, nullable and no longer mapped
+            log.warn("Could not drop legacy column {}.{}: {}", TABLE, LEGACY_COLUMN, e.getMessage());
+        }
+    }
+
+    private void relaxNotNull(Connection connection, String databaseProduct) throws SQLException {
+        log.info("Dropping NOT NULL constraint from legacy column {}.{} on {}", TABLE, LEGACY_COLUMN,
+                databaseProduct);
+        try (Statement statement = connection.createStatement()) {
+            if ("SQLite".equalsIgnoreCase(databaseProduct)) {
+                rebuildSQLiteTable(connection, statement);
+            } else {
+                statement.execute("alter table " + TABLE + " alter column " + LEGACY_COLUMN + " drop not null");
+            }
+        }
+    }
+
+    /**
+     * SQLite cannot alter a column constraint in place, so the table is
+     * recreated from its own DDL without the constraint and the rows copied.
+     */
+    private void rebuildSQLiteTable(Connection connection, Statement statement) throws SQLException {
+        String tableSql;
+        List<String> indexSql = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(
+                "select sql from sqlite_master where type = 'table' and name = '" + TABLE + "'")) {
+            rs.next();
+            tableSql = rs.getString(1);
+        }
+        try (ResultSet rs = statement.executeQuery("select sql from sqlite_master where type = 'index' "
+                + "and tbl_name = '" + TABLE + "' and sql is not null")) {
+            while (rs.next()) {
+                indexSql.add(rs.getString(1));
+            }
+        }
+        String rebuiltSql = tableSql
+                .replaceFirst("(?i)" + TABLE, TABLE + "_rebuild")
+                .replaceFirst("(?i)(" + LEGACY_COLUMN + "\\s+[a-z]+(?:\\s*\\(\\d+\\))?)\\s+not\\s+null", "$1");
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            statement.execute(rebuiltSql);
+            statement.execute("insert into " + TABLE + "_rebuild select * from " + TABLE);
+            statement.execute("drop table " + TABLE);
+            statement.execute("alter table " + TABLE + "_rebuild rename to " + TABLE);
+            for (String sql : indexSql) {
+                statement.execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
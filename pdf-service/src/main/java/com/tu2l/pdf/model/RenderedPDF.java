@@ -0,0 +1,12 @@
+package com.tu2l.pdf.model;
+
+import java.time.Duration;
+
+/**
+ * Output of one render: the PDF bytes and their SHA-256, which identifies the
+ * content in storage and is served as the download ETag. {@code renderTime} is
+ * how long the generator took, or null when the PDF came from the render
+ * cache or another request's render.
+ */
+public record RenderedPDF(String fileName, byte[] content, String contentHash, Duration renderTime) {
+}
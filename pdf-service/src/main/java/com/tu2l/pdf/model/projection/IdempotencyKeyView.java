@@ -0,0 +1,14 @@
+package com.tu2l.pdf.model.projection;
+
+/**
+ * State of a stored idempotency key. Read as a projection, so that a replay
+ * polling for the original request sees its completion even while the
+ * request's persistence context is open.
+ */
+public interface IdempotencyKeyView {
+    String getRequestHash();
+
+    Long getPdfId();
+
+    long getExpiresAt();
+}
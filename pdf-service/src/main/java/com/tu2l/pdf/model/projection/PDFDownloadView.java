@@ -0,0 +1,17 @@
+package com.tu2l.pdf.model.projection;
+
+import com.tu2l.pdf.model.states.PDFStatus;
+
+/**
+ * Metadata needed to answer a download request, loaded without the PDF
+ * content itself so that conditional requests never read the blob.
+ */
+public interface PDFDownloadView {
+    Long getId();
+
+    String getFileName();
+
+    PDFStatus getStatus();
+
+    String getContentHash();
+}
@@ -0,0 +1,19 @@
+package com.tu2l.pdf.model.projection;
+
+import com.tu2l.pdf.model.states.PDFStatus;
+
+/**
+ * Status columns of a generated PDF, for job progress checks that do not need
+ * the file name or content.
+ */
+public interface PDFStatusView {
+    Long getId();
+
+    String getUserId();
+
+    PDFStatus getStatus();
+
+    Long getSizeBytes();
+
+    String getErrorMessage();
+}
@@ -0,0 +1,22 @@
+package com.tu2l.pdf.model.projection;
+
+import java.time.LocalDateTime;
+
+import com.tu2l.pdf.model.states.PDFStatus;
+
+/**
+ * Columns of a generated PDF shown in a user's list of PDFs.
+ */
+public interface PDFSummaryView {
+    Long getId();
+
+    String getFileName();
+
+    int getNumberOfPages();
+
+    PDFStatus getStatus();
+
+    Long getSizeBytes();
+
+    LocalDateTime getCreatedAt();
+}
@@ -1,6 +1,8 @@
 package com.tu2l.pdf.model.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -9,4 +11,7 @@ import lombok.EqualsAndHashCode;
 public class GenerateAndSavePDFRequest extends GeneratePDFRequest {
     @NotBlank(message = "User ID cannot be empty")
     private String userId;
+    @Size(max = 2048, message = "Callback URL must be at most 2048 characters")
+    @Pattern(regexp = "https?://\\S+", message = "Callback URL must be an absolute http(s) URL")
+    private String callbackUrl; // optional, async only: receives the job's final state
 }
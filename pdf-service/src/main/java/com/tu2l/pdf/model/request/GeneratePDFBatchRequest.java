@@ -0,0 +1,18 @@
+package com.tu2l.pdf.model.request;
+
+import java.util.List;
+
+import com.tu2l.common.model.base.BaseRequest;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+/**
+ * Documents rendered by one batch request. Items are validated one by one
+ * while the batch runs, so an invalid item fails on its own.
+ */
+@Data
+public class GeneratePDFBatchRequest implements BaseRequest {
+    @NotEmpty(message = "Batch must contain at least one item")
+    private List<GeneratePDFRequest> items;
+}
@@ -1,21 +1,36 @@
 package com.tu2l.pdf.model.request;
 
 
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.tu2l.common.model.base.BaseRequest;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 /**
- * Request model for resume content.
+ * Request model for resume content: either the whole document in
+ * {@code content}, or a stored template and the data to fill it with.
  */
 @Data
 public class GeneratePDFRequest implements BaseRequest {
-    @NotBlank(message = "BASE64 encoded HTML content cannot be null")
     private String content; // base64 encoded html content
+    private Long templateId; // instead of content: id of a stored template
+    private Map<String, Object> data; // values for the template
     @NotBlank(message = "File name cannot be null")
     private String fileName;
     @Min(value = 1, message = "Number of pages must be at least 1")
     private int numberOfPages;
+    @Min(value = 1, message = "Render timeout must be at least 1 second")
+    private Integer renderTimeoutSeconds; // optional, overrides the default render deadline
+
+    @JsonIgnore
+    @AssertTrue(message = "Exactly one of BASE64 encoded HTML content or template ID is required")
+    public boolean isContentOrTemplate() {
+        boolean hasContent = content != null && !content.isBlank();
+        return hasContent != (templateId != null);
+    }
 }
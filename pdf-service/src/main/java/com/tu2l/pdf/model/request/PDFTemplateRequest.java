@@ -0,0 +1,16 @@
+package com.tu2l.pdf.model.request;
+
+import com.tu2l.common.model.base.BaseRequest;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class PDFTemplateRequest implements BaseRequest {
+    @NotBlank(message = "Template name cannot be empty")
+    @Size(max = 255, message = "Template name must be at most 255 characters")
+    private String name;
+    @NotBlank(message = "BASE64 encoded template cannot be null")
+    private String content; // base64 encoded Mustache HTML
+}
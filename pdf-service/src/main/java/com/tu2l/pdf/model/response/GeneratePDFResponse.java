@@ -1,13 +1,19 @@
 package com.tu2l.pdf.model.response;
 
+import org.springframework.core.io.Resource;
+
 import com.tu2l.common.model.base.BaseResponse;
+import com.tu2l.pdf.util.Base64ResourceSerializer;
 
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import tools.jackson.databind.annotation.JsonSerialize;
 
 @Data
 @EqualsAndHashCode(callSuper=true)
 public class GeneratePDFResponse extends BaseResponse {
-    private String content; // base64 encoded html content
+    // The PDF, written to JSON as base64 while it is read
+    @JsonSerialize(using = Base64ResourceSerializer.class)
+    private Resource content;
     private String fileName;
 }
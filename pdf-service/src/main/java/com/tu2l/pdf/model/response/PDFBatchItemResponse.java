@@ -0,0 +1,10 @@
+package com.tu2l.pdf.model.response;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PDFBatchItemResponse extends GeneratePDFResponse {
+    private int index; // position of the item in the batch request
+}
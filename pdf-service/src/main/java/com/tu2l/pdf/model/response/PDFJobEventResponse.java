@@ -0,0 +1,14 @@
+package com.tu2l.pdf.model.response;
+
+import com.tu2l.common.model.base.BaseResponse;
+import com.tu2l.pdf.model.states.PDFJobState;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PDFJobEventResponse extends BaseResponse {
+    private PDFJobState state;
+    private Long sizeBytes; // set once the PDF is done
+}
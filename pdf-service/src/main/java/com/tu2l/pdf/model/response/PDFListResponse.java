@@ -0,0 +1,15 @@
+package com.tu2l.pdf.model.response;
+
+import java.util.List;
+
+import com.tu2l.common.model.base.BaseResponse;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PDFListResponse extends BaseResponse {
+    private List<PDFSummaryResponse> pdfs;
+    private String nextCursor; // absent on the last page
+}
@@ -0,0 +1,17 @@
+package com.tu2l.pdf.model.response;
+
+import java.time.LocalDateTime;
+
+import com.tu2l.common.model.base.BaseResponse;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PDFSummaryResponse extends BaseResponse {
+    private String fileName;
+    private int numberOfPages;
+    private Long sizeBytes; // set once the PDF is done
+    private LocalDateTime createdAt;
+}
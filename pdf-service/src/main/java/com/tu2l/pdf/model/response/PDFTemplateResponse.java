@@ -0,0 +1,16 @@
+package com.tu2l.pdf.model.response;
+
+import java.time.LocalDateTime;
+
+import com.tu2l.common.model.base.BaseResponse;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class PDFTemplateResponse extends BaseResponse {
+    private String name;
+    private Integer version;
+    private LocalDateTime updatedAt;
+}
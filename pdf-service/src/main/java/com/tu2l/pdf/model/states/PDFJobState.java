@@ -0,0 +1,41 @@
+package com.tu2l.pdf.model.states;
+
+import com.tu2l.common.model.states.ResponseProcessingStatus;
+
+/**
+ * Progress of an asynchronous PDF as pushed to event stream subscribers.
+ */
+public enum PDFJobState {
+    QUEUED("queued", ResponseProcessingStatus.PROCESSING),
+    RENDERING("rendering", ResponseProcessingStatus.PROCESSING),
+    DONE("done", ResponseProcessingStatus.SUCCESS),
+    FAILED("failed", ResponseProcessingStatus.FAILURE);
+
+    private final String eventName;
+    private final ResponseProcessingStatus responseStatus;
+
+    PDFJobState(String eventName, ResponseProcessingStatus responseStatus) {
+        this.eventName = eventName;
+        this.responseStatus = responseStatus;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public ResponseProcessingStatus toResponseStatus() {
+        return responseStatus;
+    }
+
+    public boolean isTerminal() {
+        return this == DONE || this == FAILED;
+    }
+
+    public static PDFJobState of(PDFStatus status) {
+        return switch (status) {
+            case PROCESSING -> QUEUED;
+            case SUCCESS -> DONE;
+            case FAILED -> FAILED;
+        };
+    }
+}
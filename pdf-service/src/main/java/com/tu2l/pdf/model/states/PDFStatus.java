@@ -0,0 +1,22 @@
+package com.tu2l.pdf.model.states;
+
+import com.tu2l.common.model.states.ResponseProcessingStatus;
+
+/**
+ * Lifecycle of a stored PDF.
+ */
+public enum PDFStatus {
+    PROCESSING(ResponseProcessingStatus.PROCESSING),
+    SUCCESS(ResponseProcessingStatus.SUCCESS),
+    FAILED(ResponseProcessingStatus.FAILURE);
+
+    private final ResponseProcessingStatus responseStatus;
+
+    PDFStatus(ResponseProcessingStatus responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public ResponseProcessingStatus toResponseStatus() {
+        return responseStatus;
+    }
+}
@@ -0,0 +1,11 @@
+package com.tu2l.pdf.model.states;
+
+/**
+ * Lifecycle of a queued background render. Jobs that complete are deleted; the
+ * outcome is recorded on the PDF row.
+ */
+public enum RenderJobStatus {
+    QUEUED,
+    RUNNING,
+    FAILED
+}
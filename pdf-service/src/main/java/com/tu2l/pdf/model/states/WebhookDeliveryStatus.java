@@ -0,0 +1,10 @@
+package com.tu2l.pdf.model.states;
+
+/**
+ * Lifecycle of a completion callback. Delivered callbacks are deleted; failed
+ * ones are kept for inspection.
+ */
+public enum WebhookDeliveryStatus {
+    PENDING,
+    FAILED
+}
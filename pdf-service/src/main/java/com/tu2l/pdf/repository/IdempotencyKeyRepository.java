@@ -0,0 +1,49 @@
+package com.tu2l.pdf.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.IdempotencyKeyEntity;
+import com.tu2l.pdf.model.projection.IdempotencyKeyView;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+    Optional<IdempotencyKeyView> findViewByKeyHash(String keyHash);
+
+    // Insert syntax shared by PostgreSQL and SQLite; returns 0 when the key is already taken
+    @Transactional
+    @Modifying
+    @Query(value = "insert into pdf_idempotency_keys (key_hash, request_hash, expires_at) "
+            + "values (:keyHash, :requestHash, :expiresAt) on conflict (key_hash) do nothing", nativeQuery = true)
+    int reserve(@Param("keyHash") String keyHash, @Param("requestHash") String requestHash,
+            @Param("expiresAt") long expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKeyEntity k set k.pdfId = :pdfId, k.expiresAt = :expiresAt "
+            + "where k.keyHash = :keyHash and k.pdfId is null")
+    int complete(@Param("keyHash") String keyHash, @Param("pdfId") Long pdfId, @Param("expiresAt") long expiresAt);
+
+    // Frees the key of a request that failed, so that a retry runs it again
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.keyHash = :keyHash and k.pdfId is null")
+    int release(@Param("keyHash") String keyHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.keyHash = :keyHash and k.expiresAt < :now")
+    int deleteExpired(@Param("keyHash") String keyHash, @Param("now") long now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity k where k.expiresAt < :now")
+    int deleteAllExpired(@Param("now") long now);
+}
@@ -0,0 +1,45 @@
+package com.tu2l.pdf.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.PDFContentReferenceEntity;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface PDFContentReferenceRepository extends JpaRepository<PDFContentReferenceEntity, String> {
+    @Query("select r.refCount from PDFContentReferenceEntity r where r.contentHash = :contentHash")
+    Optional<Long> findRefCount(@Param("contentHash") String contentHash);
+
+    // Upsert syntax shared by PostgreSQL and SQLite; the row lock it takes is
+    // held until commit, serialising acquire and release of the same hash
+    @Modifying
+    @Query(value = "insert into pdf_content_refs (content_hash, ref_count) values (:contentHash, 1) "
+            + "on conflict (content_hash) do update set ref_count = pdf_content_refs.ref_count + 1",
+            nativeQuery = true)
+    int increment(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("update PDFContentReferenceEntity r set r.refCount = r.refCount - 1 "
+            + "where r.contentHash = :contentHash and r.refCount > 0")
+    int decrement(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("delete from PDFContentReferenceEntity r where r.contentHash = :contentHash and r.refCount = 0")
+    int deleteUnreferenced(@Param("contentHash") String contentHash);
+
+    // Counts references of rows saved before reference counting existed
+    @Transactional
+    @Modifying
+    @Query(value = "insert into pdf_content_refs (content_hash, ref_count) "
+            + "select content_hash, count(*) from generated_pdfs "
+            + "where content_hash is not null and status = 'SUCCESS' group by content_hash "
+            + "on conflict (content_hash) do nothing", nativeQuery = true)
+    int backfillMissing();
+}
@@ -0,0 +1,23 @@
+package com.tu2l.pdf.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.GeneratedPDFContentEntity;
+
+import jakarta.transaction.Transactional;
+
+@Repository
+public interface PDFContentRepository extends JpaRepository<GeneratedPDFContentEntity, String> {
+    // ON CONFLICT DO NOTHING is understood by both PostgreSQL and SQLite
+    @Transactional
+    @Modifying
+    @Query(value = "insert into generated_pdf_contents (content_hash, content, size_bytes, codec) "
+            + "values (:contentHash, :content, :sizeBytes, :codec) on conflict (content_hash) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("contentHash") String contentHash, @Param("content") byte[] content,
+            @Param("sizeBytes") long sizeBytes, @Param("codec") String codec);
+}
@@ -1,10 +1,64 @@
 package com.tu2l.pdf.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tu2l.pdf.entity.GeneratedPDFEntity;
+import com.tu2l.pdf.model.projection.PDFDownloadView;
+import com.tu2l.pdf.model.projection.PDFStatusView;
+import com.tu2l.pdf.model.projection.PDFSummaryView;
+import com.tu2l.pdf.model.states.PDFStatus;
+
+import jakarta.transaction.Transactional;
 
 @Repository
 public interface PDFRepository extends JpaRepository<GeneratedPDFEntity, Long> {
+    Optional<PDFDownloadView> findDownloadViewById(Long id);
+
+    Optional<PDFStatusView> findStatusViewById(Long id);
+
+    List<PDFStatusView> findStatusViewsByUserIdAndStatus(String userId, PDFStatus status);
+
+    List<PDFStatusView> findStatusViewsByIdInAndStatusNot(Collection<Long> ids, PDFStatus status);
+
+    List<PDFStatusView> findStatusViewsByUserIdInAndUpdatedAtAfter(Collection<String> userIds,
+            LocalDateTime updatedAfter);
+
+    List<PDFSummaryView> findSummaryViewsByUserIdOrderByCreatedAtDescIdDesc(String userId, Limit limit);
+
+    /**
+     * The page of a user's PDFs after the one ending at {@code (createdAt, id)},
+     * newest first. The redundant bound on {@code createdAt} lets the planner
+     * seek the {@code (user_id, created_at, id)} index instead of filtering.
+     */
+    @Query("select p.id as id, p.fileName as fileName, p.numberOfPages as numberOfPages, p.status as status, "
+            + "p.sizeBytes as sizeBytes, p.createdAt as createdAt from GeneratedPDFEntity p "
+            + "where p.userId = :userId and p.createdAt <= :createdAt "
+            + "and (p.createdAt < :createdAt or p.id < :id) order by p.createdAt desc, p.id desc")
+    List<PDFSummaryView> findSummaryViewsByUserIdBefore(@Param("userId") String userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update GeneratedPDFEntity p set p.status = com.tu2l.pdf.model.states.PDFStatus.SUCCESS, "
+            + "p.contentHash = :contentHash, p.sizeBytes = :sizeBytes, p.errorMessage = null, "
+            + "p.updatedAt = :updatedAt where p.id = :id")
+    int markSucceeded(@Param("id") Long id, @Param("contentHash") String contentHash,
+            @Param("sizeBytes") long sizeBytes, @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update GeneratedPDFEntity p set p.status = com.tu2l.pdf.model.states.PDFStatus.FAILED, "
+            + "p.errorMessage = :errorMessage, p.updatedAt = :updatedAt where p.id = :id")
+    int markFailed(@Param("id") Long id, @Param("errorMessage") String errorMessage,
+            @Param("updatedAt") LocalDateTime updatedAt);
 }
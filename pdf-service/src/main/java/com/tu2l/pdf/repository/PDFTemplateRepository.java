@@ -0,0 +1,17 @@
+package com.tu2l.pdf.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.PDFTemplateEntity;
+
+@Repository
+public interface PDFTemplateRepository extends JpaRepository<PDFTemplateEntity, Long> {
+    // Checked on every render, so it must not load the source
+    @Query("select t.version from PDFTemplateEntity t where t.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Long id);
+}
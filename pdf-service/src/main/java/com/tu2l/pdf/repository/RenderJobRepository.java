@@ -0,0 +1,70 @@
+package com.tu2l.pdf.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.RenderJobEntity;
+import com.tu2l.pdf.model.states.RenderJobStatus;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Every update of a claimed job is conditional on the caller still holding its
+ * lease, so a worker whose lease expired and was taken over cannot overwrite
+ * the new owner's outcome.
+ */
+@Repository
+public interface RenderJobRepository extends JpaRepository<RenderJobEntity, Long> {
+    @Transactional
+    @Modifying
+    @Query("delete from RenderJobEntity j where j.id = :id and j.leaseOwner = :owner "
+            + "and j.status = com.tu2l.pdf.model.states.RenderJobStatus.RUNNING")
+    int deleteClaimed(@Param("id") Long id, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("update RenderJobEntity j set j.status = com.tu2l.pdf.model.states.RenderJobStatus.QUEUED, "
+            + "j.nextAttemptAt = :nextAttemptAt, j.lastError = :lastError, j.leaseOwner = null, "
+            + "j.leaseExpiresAt = null where j.id = :id and j.leaseOwner = :owner "
+            + "and j.status = com.tu2l.pdf.model.states.RenderJobStatus.RUNNING")
+    int reschedule(@Param("id") Long id, @Param("owner") String owner, @Param("nextAttemptAt") long nextAttemptAt,
+            @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("update RenderJobEntity j set j.status = com.tu2l.pdf.model.states.RenderJobStatus.FAILED, "
+            + "j.lastError = :lastError, j.content = null, j.templateData = null, j.leaseOwner = null, j.leaseExpiresAt = null "
+            + "where j.id = :id and j.leaseOwner = :owner "
+            + "and j.status = com.tu2l.pdf.model.states.RenderJobStatus.RUNNING")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("update RenderJobEntity j set j.leaseExpiresAt = :leaseExpiresAt where j.id in :ids "
+            + "and j.leaseOwner = :owner and j.status = com.tu2l.pdf.model.states.RenderJobStatus.RUNNING")
+    int extendLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("leaseExpiresAt") long leaseExpiresAt);
+
+    // Hands jobs interrupted by a shutdown back without counting the attempt
+    @Transactional
+    @Modifying
+    @Query("update RenderJobEntity j set j.status = com.tu2l.pdf.model.states.RenderJobStatus.QUEUED, "
+            + "j.attempts = j.attempts - 1, j.nextAttemptAt = :nextAttemptAt, j.leaseOwner = null, "
+            + "j.leaseExpiresAt = null where j.id in :ids and j.leaseOwner = :owner "
+            + "and j.status = com.tu2l.pdf.model.states.RenderJobStatus.RUNNING")
+    int requeue(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+            @Param("nextAttemptAt") long nextAttemptAt);
+
+    @Query("select j.status from RenderJobEntity j where j.pdfId = :pdfId")
+    List<RenderJobStatus> findStatusesByPdfId(@Param("pdfId") Long pdfId);
+
+    @Modifying
+    @Query("delete from RenderJobEntity j where j.pdfId = :pdfId")
+    int deleteByPdfId(@Param("pdfId") Long pdfId);
+}
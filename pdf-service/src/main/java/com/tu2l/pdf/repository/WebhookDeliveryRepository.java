@@ -0,0 +1,38 @@
+package com.tu2l.pdf.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.tu2l.pdf.entity.WebhookDeliveryEntity;
+
+import jakarta.transaction.Transactional;
+
+/**
+ * Like {@link RenderJobRepository}, outcomes are only recorded by the sender
+ * that claimed the delivery.
+ */
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDeliveryEntity, Long> {
+    @Transactional
+    @Modifying
+    @Query("delete from WebhookDeliveryEntity d where d.id in :ids and d.leaseOwner = :owner")
+    int deleteClaimed(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("update WebhookDeliveryEntity d set d.nextAttemptAt = :nextAttemptAt, d.lastError = :lastError, "
+            + "d.leaseOwner = null where d.id = :id and d.leaseOwner = :owner")
+    int reschedule(@Param("id") Long id, @Param("owner") String owner, @Param("nextAttemptAt") long nextAttemptAt,
+            @Param("lastError") String lastError);
+
+    @Transactional
+    @Modifying
+    @Query("update WebhookDeliveryEntity d set d.status = com.tu2l.pdf.model.states.WebhookDeliveryStatus.FAILED, "
+            + "d.lastError = :lastError, d.leaseOwner = null where d.id = :id and d.leaseOwner = :owner")
+    int markFailed(@Param("id") Long id, @Param("owner") String owner, @Param("lastError") String lastError);
+}
@@ -1,8 +1,15 @@
 package com.tu2l.pdf.service;
 
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+
+import com.tu2l.pdf.model.projection.PDFDownloadView;
 import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
 import com.tu2l.pdf.model.request.GeneratePDFRequest;
 import com.tu2l.pdf.model.response.GeneratePDFResponse;
+import com.tu2l.pdf.model.response.PDFJobEventResponse;
+import com.tu2l.pdf.model.response.PDFListResponse;
 
 /**
  * Service interface for generating PDFs from HTML content.
@@ -13,6 +20,19 @@ public interface PDFService {
     GeneratePDFResponse generateAndSave(GenerateAndSavePDFRequest pdfRequest) throws Exception;
 
     // Asynchronous PDF generation
-    GeneratePDFResponse generateAsync(GenerateAndSavePDFRequest pdfRequest) throws Exception;
+    GeneratePDFResponse generateAsync(GenerateAndSavePDFRequest pdfRequest, String userRole) throws Exception;
     GeneratePDFResponse getGeneratedPDFById(long pdfRequestId) throws Exception;
+    GeneratePDFResponse getGeneratedPDFMetadataById(long pdfRequestId) throws Exception;
+    GeneratePDFResponse deletePDF(long pdfRequestId) throws Exception;
+
+    // Raw download
+    PDFDownloadView getPDFDownloadView(long pdfRequestId) throws Exception;
+    Resource getPDFContent(String contentHash) throws Exception;
+
+    // Job progress, without the PDF content
+    PDFJobEventResponse getJobStatus(long pdfRequestId) throws Exception;
+    List<PDFJobEventResponse> getPendingJobs(String userId);
+
+    // Listing, newest first, continued with the returned cursor
+    PDFListResponse listPDFs(String userId, String cursor, int limit) throws Exception;
 }
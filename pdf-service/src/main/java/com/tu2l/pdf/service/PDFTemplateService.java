@@ -0,0 +1,15 @@
+package com.tu2l.pdf.service;
+
+import com.tu2l.pdf.model.request.PDFTemplateRequest;
+import com.tu2l.pdf.model.response.PDFTemplateResponse;
+
+/**
+ * Service interface for managing the HTML templates that render requests can
+ * refer to instead of sending the whole document.
+ */
+public interface PDFTemplateService {
+    PDFTemplateResponse createTemplate(PDFTemplateRequest templateRequest) throws Exception;
+    PDFTemplateResponse updateTemplate(long templateId, PDFTemplateRequest templateRequest) throws Exception;
+    PDFTemplateResponse getTemplate(long templateId) throws Exception;
+    PDFTemplateResponse deleteTemplate(long templateId) throws Exception;
+}
@@ -0,0 +1,150 @@
+package com.tu2l.pdf.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+
+import com.tu2l.common.util.CommonUtil;
+import com.tu2l.pdf.admission.AdmissionController;
+import com.tu2l.pdf.admission.RenderLane;
+import com.tu2l.pdf.cache.RenderCache;
+import com.tu2l.pdf.cache.RenderCoalescer;
+import com.tu2l.pdf.cache.RenderKeyGenerator;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.generator.HtmlSource;
+import com.tu2l.pdf.generator.PDFGenerator;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.template.PDFTemplateRegistry;
+import com.tu2l.pdf.util.ContentDigest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Turns a request into PDF bytes: streams the decoded and sanitized HTML, or
+ * renders the requested template and sanitizes its output, consults the
+ * render cache and renders under admission control on a miss, sharing the
+ * render with identical requests in flight. Shared by the request path and
+ * the background job workers.
+ * <p>
+ * Template output is sanitized on every request, not just the stored source:
+ * mustache tags can split an HTML tag or event attribute, so markup that is
+ * harmless in the source can be assembled by the data.
+ */
+@Slf4j
+@Service
+public class PDFRenderer {
+    private final CommonUtil commonUtil;
+    private final PDFGenerator pdfGenerator;
+    private final String engine;
+    private final Duration defaultRenderTimeout;
+    private final Duration maxRenderTimeout;
+    private final RenderCache renderCache;
+    private final RenderCoalescer renderCoalescer;
+    private final AdmissionController admissionController;
+    private final PDFTemplateRegistry templateRegistry;
+
+    public PDFRenderer(CommonUtil commonUtil, Map<String, PDFGenerator> pdfGenerators,
+                       PDFServiceProperties properties, RenderCache renderCache, RenderCoalescer renderCoalescer,
+                       AdmissionController admissionController, PDFTemplateRegistry templateRegistry) {
+        this.commonUtil = commonUtil;
+        this.engine = properties.getGenerator().getEngine();
+        this.pdfGenerator = selectGenerator(pdfGenerators, engine);
+        this.defaultRenderTimeout = properties.getGenerator().getRenderTimeout();
+        this.maxRenderTimeout = properties.getGenerator().getMaxRenderTimeout();
+        this.renderCache = renderCache;
+        this.renderCoalescer = renderCoalescer;
+        this.admissionController = admissionController;
+        this.templateRegistry = templateRegistry;
+    }
+
+    private static PDFGenerator selectGenerator(Map<String, PDFGenerator> pdfGenerators, String engine) {
+        PDFGenerator generator = pdfGenerators.get(engine);
+        if (generator == null) {
+            throw new IllegalStateException("Unknown PDF generator engine '" + engine
+                    + "', available engines: " + pdfGenerators.keySet());
+        }
+        log.info("Using PDF generator engine: {}", engine);
+        return generator;
+    }
+
+    public RenderedPDF render(GeneratePDFRequest pdfRequest, RenderLane lane) throws Exception {
+        // Rendered template output is sanitized per request by the registry, as its tags can split HTML
+        // tags; request content is decoded and sanitized as it is streamed, once for the cache key and
+        // again into the renderer
+        HtmlSource html;
+        if (pdfRequest.getTemplateId() != null) {
+            html = HtmlSource.of(templateRegistry.render(pdfRequest.getTemplateId(), pdfRequest.getData()));
+        } else {
+            String content = pdfRequest.getContent();
+            html = () -> commonUtil.decodeAndSanitizeBase64(content);
+        }
+        String fileName = commonUtil.cleanExtension(pdfRequest.getFileName());
+
+        log.debug("Cleaned filename: {}", fileName);
+
+        PDFGeneratorConfiguration configuration = PDFGeneratorConfiguration.builder()
+                .html(html)
+                .fileName(fileName)
+                .numberOfPagesToGenerate(pdfRequest.getNumberOfPages())
+                .layoutParams(new LayoutParams())
+                .renderTimeout(resolveRenderTimeout(pdfRequest))
+                .build();
+
+        String cacheKey = cacheKey(html, configuration.getLayoutParams());
+        // Set only by the request whose render runs
+        Duration[] renderTime = new Duration[1];
+        byte[] pdfBytes = renderCache.get(cacheKey).orElse(null);
+        if (pdfBytes != null) {
+            log.info("PDF served from render cache: fileName={}, size={} bytes", fileName, pdfBytes.length);
+        } else {
+            // Identical requests in flight share one render and do not take admission permits;
+            // a joiner waits no longer than it could have queued and rendered by itself, and only
+            // joins renders with its own render timeout, so it never inherits a shorter deadline
+            Duration queueWait = admissionController.getMaxRenderQueueWait(lane);
+            Duration maxWait = queueWait != null ? queueWait.plus(configuration.getRenderTimeout()) : null;
+            String renderKey = cacheKey + "/" + configuration.getRenderTimeout().toMillis();
+            pdfBytes = renderCoalescer.render(renderKey, maxWait, () -> {
+                // A joiner rendering again after its leader was rejected may find a later render cached
+                byte[] cached = renderCache.get(cacheKey).orElse(null);
+                if (cached != null) {
+                    return cached;
+                }
+                byte[] rendered;
+                try (AdmissionController.Permit permit = admissionController.acquireRender(lane)) {
+                    long start = System.nanoTime();
+                    rendered = pdfGenerator.generatePDF(configuration);
+                    renderTime[0] = Duration.ofNanos(System.nanoTime() - start);
+                }
+                renderCache.put(cacheKey, rendered);
+                log.info("PDF generated successfully: fileName={}, size={} bytes", fileName, rendered.length);
+                return rendered;
+            });
+        }
+
+        return new RenderedPDF(fileName, pdfBytes, ContentDigest.sha256Hex(pdfBytes), renderTime[0]);
+    }
+
+    // Reads the whole document, so malformed content is rejected before rendering
+    private String cacheKey(HtmlSource html, LayoutParams layoutParams) {
+        try (Reader reader = html.open()) {
+            return RenderKeyGenerator.keyFor(reader, layoutParams, engine);
+        } catch (IOException e) {
+            // Sources are in memory, so only malformed base64 fails to read
+            throw new IllegalArgumentException("Content is not valid base64: " + e.getMessage(), e);
+        }
+    }
+
+    private Duration resolveRenderTimeout(GeneratePDFRequest pdfRequest) {
+        if (pdfRequest.getRenderTimeoutSeconds() == null) {
+            return defaultRenderTimeout;
+        }
+        Duration requested = Duration.ofSeconds(pdfRequest.getRenderTimeoutSeconds());
+        return requested.compareTo(maxRenderTimeout) > 0 ? maxRenderTimeout : requested;
+    }
+}
@@ -1,47 +1,87 @@
 package com.tu2l.pdf.service.impl;
 
 import com.tu2l.common.model.states.ResponseProcessingStatus;
-import com.tu2l.common.util.CommonUtil;
+import com.tu2l.pdf.admission.RenderLane;
 import com.tu2l.pdf.entity.GeneratedPDFEntity;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
 import com.tu2l.pdf.exception.PDFException;
-import com.tu2l.pdf.generator.PDFGenerator;
-import com.tu2l.pdf.generator.PDFGeneratorConfiguration;
-import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.exception.PDFNotFoundException;
+import com.tu2l.pdf.job.PDFJobStateChangedEvent;
+import com.tu2l.pdf.job.RenderJobService;
+import com.tu2l.pdf.migration.LegacyPDFContentMigration;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.projection.PDFDownloadView;
+import com.tu2l.pdf.model.projection.PDFStatusView;
+import com.tu2l.pdf.model.projection.PDFSummaryView;
 import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
 import com.tu2l.pdf.model.request.GeneratePDFRequest;
 import com.tu2l.pdf.model.response.GeneratePDFResponse;
+import com.tu2l.pdf.model.response.PDFJobEventResponse;
+import com.tu2l.pdf.model.response.PDFListResponse;
+import com.tu2l.pdf.model.response.PDFSummaryResponse;
+import com.tu2l.pdf.model.states.PDFJobState;
+import com.tu2l.pdf.model.states.PDFStatus;
 import com.tu2l.pdf.repository.PDFRepository;
 import com.tu2l.pdf.service.PDFService;
+import com.tu2l.pdf.storage.PDFContentReferences;
+import com.tu2l.pdf.storage.PDFContentStore;
+import com.tu2l.pdf.template.PDFTemplateRegistry;
 import com.tu2l.pdf.util.EntityMapper;
+import com.tu2l.pdf.webhook.CallbackUrlPolicy;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
 @Slf4j
 @Service
 public class PDFServiceImpl implements PDFService {
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final PDFRepository repository;
-    private final CommonUtil commonUtil;
     private final EntityMapper mapper;
-    private final PDFGenerator pdfGenerator;
-    private final AsyncPDFService asyncPDFService;
+    private final PDFRenderer renderer;
+    private final RenderJobService renderJobService;
+    private final PDFContentStore contentStore;
+    private final PDFContentReferences contentReferences;
+    private final LegacyPDFContentMigration legacyMigration;
+    private final EntityManager entityManager;
+    private final PDFTemplateRegistry templateRegistry;
+    private final CallbackUrlPolicy callbackUrlPolicy;
 
-    public PDFServiceImpl(PDFRepository repository, CommonUtil commonUtil, EntityMapper mapper,
-                          @Qualifier("wkhtmlToPdfGenerator") PDFGenerator pdfGenerator,
-                          AsyncPDFService asyncPDFService) {
+    public PDFServiceImpl(PDFRepository repository, EntityMapper mapper,
+                          PDFRenderer renderer, RenderJobService renderJobService,
+                          PDFContentStore contentStore, PDFContentReferences contentReferences,
+                          LegacyPDFContentMigration legacyMigration, EntityManager entityManager,
+                          PDFTemplateRegistry templateRegistry, CallbackUrlPolicy callbackUrlPolicy) {
         this.repository = repository;
-        this.commonUtil = commonUtil;
         this.mapper = mapper;
-        this.pdfGenerator = pdfGenerator;
-        this.asyncPDFService = asyncPDFService;
+        this.renderer = renderer;
+        this.renderJobService = renderJobService;
+        this.contentStore = contentStore;
+        this.contentReferences = contentReferences;
+        this.legacyMigration = legacyMigration;
+        this.entityManager = entityManager;
+        this.templateRegistry = templateRegistry;
+        this.callbackUrlPolicy = callbackUrlPolicy;
     }
 
     @Override
     public GeneratePDFResponse generate(GeneratePDFRequest pdfRequest) throws Exception {
         log.debug("Starting PDF generation: fileName={}, numberOfPages={}", pdfRequest.getFileName(),
                 pdfRequest.getNumberOfPages());
-        return generateAndGetPDFResponse(pdfRequest);
+        return generateAndGetPDFResponse(pdfRequest, RenderLane.INTERACTIVE);
     }
 
     @Override
@@ -49,20 +89,29 @@ public class PDFServiceImpl implements PDFService {
     public GeneratePDFResponse generateAndSave(GenerateAndSavePDFRequest pdfRequest) throws Exception {
         log.info("Starting PDF generation and save: fileName={}", pdfRequest.getFileName());
 
-        GeneratePDFResponse response = generateAndGetPDFResponse(pdfRequest);
-        GeneratedPDFEntity entity = mapper.map(response, pdfRequest)
+        RenderedPDF rendered = renderer.render(pdfRequest, RenderLane.INTERACTIVE);
+        GeneratedPDFEntity entity = mapper.map(rendered, pdfRequest)
                 .orElseThrow(() -> new PDFException("Mapping to entity failed"));
-        if (entity != null && entity.getEncodedPdf() != null) {
-            repository.save(entity);
-        }
+        contentReferences.acquire(rendered.contentHash(), rendered.content());
+        GeneratedPDFEntity saved = repository.save(entity);
 
+        GeneratePDFResponse response = toResponse(rendered);
+        response.setId(String.valueOf(saved.getId()));
         return response;
     }
 
     @Override
     @Transactional
-    public GeneratePDFResponse generateAsync(GenerateAndSavePDFRequest pdfRequest) throws Exception {
+    public GeneratePDFResponse generateAsync(GenerateAndSavePDFRequest pdfRequest, String userRole)
+            throws Exception {
         log.info("Starting asynchronous PDF generation: fileName={}", pdfRequest.getFileName());
+        if (pdfRequest.getTemplateId() != null) {
+            // Rejected now rather than by a failed job later
+            templateRegistry.requireExists(pdfRequest.getTemplateId());
+        }
+        if (pdfRequest.getCallbackUrl() != null) {
+            checkCallbackUrl(pdfRequest.getCallbackUrl());
+        }
         GeneratePDFResponse asyncResponse = new GeneratePDFResponse();
 
         GeneratedPDFEntity pdfToBeGenerated = mapper.map(pdfRequest)
@@ -77,8 +126,8 @@ public class PDFServiceImpl implements PDFService {
         asyncResponse.setFileName(saved.getFileName());
         asyncResponse.setStatus(ResponseProcessingStatus.PROCESSING);
 
-        // Delegate to AsyncPDFService where @Async will work via Spring proxy
-        asyncPDFService.processAsyncPDFGeneration(pdfRequest, saved.getId(), this::generateAndGetPDFResponse);
+        // Queued in the same transaction, so the row is never left without a job
+        renderJobService.enqueue(saved.getId(), pdfRequest, userRole);
 
         return asyncResponse;
     }
@@ -86,36 +135,184 @@ public class PDFServiceImpl implements PDFService {
     @Override
     public GeneratePDFResponse getGeneratedPDFById(long pdfRequestId) throws Exception {
         log.info("Fetching generated PDF by ID: pdfRequestId={}", pdfRequestId);
-        return repository.findById(pdfRequestId)
-                .map(mapper::map)
+        GeneratedPDFEntity entity = findMigrated(pdfRequestId)
                 .orElseThrow(() -> new PDFException("Generated PDF not found for ID: " + pdfRequestId));
+        GeneratePDFResponse response = mapper.map(entity);
+        if (entity.getStatus() == PDFStatus.SUCCESS) {
+            // Read from the store only while the response is written
+            response.setContent(getPDFContent(entity.getContentHash()));
+        }
+        return response;
     }
 
-    private GeneratePDFResponse generateAndGetPDFResponse(GeneratePDFRequest pdfRequest) throws Exception {
+    @Override
+    public GeneratePDFResponse getGeneratedPDFMetadataById(long pdfRequestId) throws Exception {
+        GeneratedPDFEntity entity = findMigrated(pdfRequestId)
+                .orElseThrow(() -> new PDFNotFoundException("Generated PDF not found for ID: " + pdfRequestId));
+        return mapper.map(entity);
+    }
+
+    @Override
+    @Transactional
+    public GeneratePDFResponse deletePDF(long pdfRequestId) throws Exception {
+        log.info("Deleting generated PDF: pdfRequestId={}", pdfRequestId);
+        GeneratedPDFEntity entity = findMigrated(pdfRequestId)
+                .orElseThrow(() -> new PDFNotFoundException("Generated PDF not found for ID: " + pdfRequestId));
+        repository.delete(entity);
+        renderJobService.cancel(pdfRequestId);
+        boolean contentDeleted = entity.getStatus() == PDFStatus.SUCCESS
+                && contentReferences.release(entity.getContentHash());
+        log.debug("Generated PDF deleted: pdfRequestId={}, contentDeleted={}", pdfRequestId, contentDeleted);
+
         GeneratePDFResponse response = new GeneratePDFResponse();
+        response.setId(String.valueOf(pdfRequestId));
+        response.setFileName(entity.getFileName());
+        response.setStatus(ResponseProcessingStatus.SUCCESS);
+        return response;
+    }
 
-        log.debug("Decoding and Sanitizing content for file: {}", pdfRequest.getFileName());
+    @Override
+    public PDFDownloadView getPDFDownloadView(long pdfRequestId) throws Exception {
+        PDFDownloadView view = repository.findDownloadViewById(pdfRequestId)
+                .orElseThrow(() -> new PDFNotFoundException("Generated PDF not found for ID: " + pdfRequestId));
+        if (view.getStatus() == null && legacyMigration.migrateRow(pdfRequestId)) {
+            view = repository.findDownloadViewById(pdfRequestId).orElse(view);
+        }
+        if (view.getStatus() != PDFStatus.SUCCESS) {
+            throw new PDFNotFoundException("Generated PDF is not available for ID: " + pdfRequestId
+                    + ", status: " + view.getStatus());
+        }
+        return view;
+    }
 
-        String content = commonUtil.decodeAndSanitizeBase64StringToString(pdfRequest.getContent());
-        String fileName = commonUtil.cleanExtension(pdfRequest.getFileName());
+    @Override
+    public Resource getPDFContent(String contentHash) throws Exception {
+        return contentStore.load(contentHash)
+                .orElseThrow(() -> new PDFNotFoundException("PDF content not found for hash: " + contentHash));
+    }
 
-        log.debug("Cleaned filename: {}", fileName);
+    @Override
+    public PDFJobEventResponse getJobStatus(long pdfRequestId) throws Exception {
+        PDFStatusView view = repository.findStatusViewById(pdfRequestId)
+                .orElseThrow(() -> new PDFNotFoundException("Generated PDF not found for ID: " + pdfRequestId));
+        if (view.getStatus() == null && legacyMigration.migrateRow(pdfRequestId)) {
+            view = repository.findStatusViewById(pdfRequestId).orElse(view);
+        }
+        if (view.getStatus() == null) {
+            throw new PDFNotFoundException("Generated PDF has no status for ID: " + pdfRequestId);
+        }
+        return toJobEvent(view).toResponse();
+    }
 
-        PDFGeneratorConfiguration configuration = PDFGeneratorConfiguration.builder()
-                .htmlContent(content)
-                .fileName(fileName)
-                .numberOfPagesToGenerate(pdfRequest.getNumberOfPages())
-                .layoutParams(new LayoutParams())
-                .build();
+    @Override
+    public List<PDFJobEventResponse> getPendingJobs(String userId) {
+        return repository.findStatusViewsByUserIdAndStatus(userId, PDFStatus.PROCESSING).stream()
+                .map(view -> toJobEvent(view).toResponse())
+                .toList();
+    }
 
-        byte[] pdfBytes = pdfGenerator.generatePDF(configuration);
+    @Override
+    public PDFListResponse listPDFs(String userId, String cursor, int limit) throws Exception {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One row more than requested tells whether another page follows
+        Limit fetch = Limit.of(pageSize + 1);
+        List<PDFSummaryView> views;
+        if (cursor == null || cursor.isEmpty()) {
+            views = repository.findSummaryViewsByUserIdOrderByCreatedAtDescIdDesc(userId, fetch);
+        } else {
+            PageCursor after = PageCursor.decode(cursor);
+            views = repository.findSummaryViewsByUserIdBefore(userId, after.createdAt(), after.id(), fetch);
+        }
+
+        PDFListResponse response = new PDFListResponse();
+        response.setPdfs(views.stream().limit(pageSize).map(PDFServiceImpl::toSummary).toList());
+        if (views.size() > pageSize) {
+            PDFSummaryView last = views.get(pageSize - 1);
+            response.setNextCursor(new PageCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        response.setStatus(ResponseProcessingStatus.SUCCESS);
+        return response;
+    }
 
-        log.info("PDF generated successfully: fileName={}, size={} bytes", fileName, pdfBytes.length);
+    private static PDFSummaryResponse toSummary(PDFSummaryView view) {
+        PDFSummaryResponse summary = new PDFSummaryResponse();
+        summary.setId(String.valueOf(view.getId()));
+        summary.setFileName(view.getFileName());
+        summary.setNumberOfPages(view.getNumberOfPages());
+        summary.setSizeBytes(view.getSizeBytes());
+        summary.setCreatedAt(view.getCreatedAt());
+        if (view.getStatus() != null) {
+            summary.setStatus(view.getStatus().toResponseStatus());
+        }
+        return summary;
+    }
 
-        content = commonUtil.encodeByteArrayToBase64String(pdfBytes);
-        response.setContent(content);
-        response.setFileName(fileName);
+    private PDFJobStateChangedEvent toJobEvent(PDFStatusView view) {
+        PDFJobState state = PDFJobState.of(view.getStatus());
+        if (state == PDFJobState.QUEUED && renderJobService.isRendering(view.getId())) {
+            state = PDFJobState.RENDERING;
+        }
+        return PDFJobStateChangedEvent.of(view, state);
+    }
+
+    /**
+     * Loads the metadata row, migrating it first if it still holds legacy
+     * base64 content.
+     */
+    private Optional<GeneratedPDFEntity> findMigrated(long pdfRequestId) {
+        Optional<GeneratedPDFEntity> entity = repository.findById(pdfRequestId);
+        if (entity.isPresent() && entity.get().getStatus() == null && legacyMigration.migrateRow(pdfRequestId)) {
+            entityManager.detach(entity.get());
+            return repository.findById(pdfRequestId);
+        }
+        return entity;
+    }
+
+    private GeneratePDFResponse generateAndGetPDFResponse(GeneratePDFRequest pdfRequest, RenderLane lane)
+            throws Exception {
+        return toResponse(renderer.render(pdfRequest, lane));
+    }
+
+    // Checked again before each delivery, as the host may resolve differently by then
+    private void checkCallbackUrl(String callbackUrl) throws CallbackUrlRejectedException {
+        try {
+            callbackUrlPolicy.check(URI.create(callbackUrl));
+        } catch (IllegalArgumentException e) {
+            throw new CallbackUrlRejectedException("Invalid callback URL: " + e.getMessage());
+        } catch (UnknownHostException e) {
+            throw new CallbackUrlRejectedException("Callback host cannot be resolved: " + e.getMessage());
+        }
+    }
+
+    private GeneratePDFResponse toResponse(RenderedPDF rendered) {
+        GeneratePDFResponse response = new GeneratePDFResponse();
+        response.setContent(new ByteArrayResource(rendered.content()));
+        response.setFileName(rendered.fileName());
         response.setStatus(ResponseProcessingStatus.SUCCESS);
         return response;
     }
+
+    /**
+     * Position after the last PDF of a page, handed to clients as an opaque
+     * token.
+     */
+    private record PageCursor(LocalDateTime createdAt, long id) {
+        private static final char SEPARATOR = '|';
+
+        String encode() {
+            String position = createdAt.toString() + SEPARATOR + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PageCursor decode(String cursor) throws PDFException {
+            try {
+                String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = position.lastIndexOf(SEPARATOR);
+                return new PageCursor(LocalDateTime.parse(position.substring(0, separator)),
+                        Long.parseLong(position.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new PDFException("Invalid page cursor: " + cursor, e);
+            }
+        }
+    }
 }
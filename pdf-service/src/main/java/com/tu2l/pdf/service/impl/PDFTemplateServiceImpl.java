@@ -0,0 +1,91 @@
+package com.tu2l.pdf.service.impl;
+
+import org.springframework.stereotype.Service;
+
+import com.tu2l.common.model.states.ResponseProcessingStatus;
+import com.tu2l.common.util.CommonUtil;
+import com.tu2l.pdf.entity.PDFTemplateEntity;
+import com.tu2l.pdf.exception.PDFTemplateNotFoundException;
+import com.tu2l.pdf.model.request.PDFTemplateRequest;
+import com.tu2l.pdf.model.response.PDFTemplateResponse;
+import com.tu2l.pdf.repository.PDFTemplateRepository;
+import com.tu2l.pdf.service.PDFTemplateService;
+import com.tu2l.pdf.template.PDFTemplateRegistry;
+
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class PDFTemplateServiceImpl implements PDFTemplateService {
+    private final PDFTemplateRepository repository;
+    private final PDFTemplateRegistry registry;
+    private final CommonUtil commonUtil;
+
+    public PDFTemplateServiceImpl(PDFTemplateRepository repository, PDFTemplateRegistry registry,
+                                  CommonUtil commonUtil) {
+        this.repository = repository;
+        this.registry = registry;
+        this.commonUtil = commonUtil;
+    }
+
+    @Override
+    @Transactional
+    public PDFTemplateResponse createTemplate(PDFTemplateRequest templateRequest) throws Exception {
+        PDFTemplateEntity entity = new PDFTemplateEntity();
+        entity.setName(templateRequest.getName());
+        entity.setSource(decodeAndValidate(templateRequest));
+        PDFTemplateEntity saved = repository.saveAndFlush(entity);
+        log.info("Template created: templateId={}, name={}", saved.getId(), saved.getName());
+        return toResponse(saved);
+    }
+
+    @Override
+    @Transactional
+    public PDFTemplateResponse updateTemplate(long templateId, PDFTemplateRequest templateRequest)
+            throws Exception {
+        PDFTemplateEntity entity = repository.findById(templateId)
+                .orElseThrow(() -> new PDFTemplateNotFoundException(templateId));
+        entity.setName(templateRequest.getName());
+        entity.setSource(decodeAndValidate(templateRequest));
+        // Flushed here so the response carries the bumped version
+        PDFTemplateEntity saved = repository.saveAndFlush(entity);
+        registry.evict(templateId);
+        log.info("Template updated: templateId={}, version={}", templateId, saved.getVersion());
+        return toResponse(saved);
+    }
+
+    @Override
+    public PDFTemplateResponse getTemplate(long templateId) throws Exception {
+        return toResponse(repository.findById(templateId)
+                .orElseThrow(() -> new PDFTemplateNotFoundException(templateId)));
+    }
+
+    @Override
+    @Transactional
+    public PDFTemplateResponse deleteTemplate(long templateId) throws Exception {
+        PDFTemplateEntity entity = repository.findById(templateId)
+                .orElseThrow(() -> new PDFTemplateNotFoundException(templateId));
+        repository.delete(entity);
+        registry.evict(templateId);
+        log.info("Template deleted: templateId={}", templateId);
+        return toResponse(entity);
+    }
+
+    // Decoded and sanitized once here rather than on every render
+    private String decodeAndValidate(PDFTemplateRequest templateRequest) throws Exception {
+        String source = commonUtil.decodeAndSanitizeBase64StringToString(templateRequest.getContent());
+        registry.compile(source);
+        return source;
+    }
+
+    private static PDFTemplateResponse toResponse(PDFTemplateEntity entity) {
+        PDFTemplateResponse response = new PDFTemplateResponse();
+        response.setId(String.valueOf(entity.getId()));
+        response.setName(entity.getName());
+        response.setVersion(entity.getVersion());
+        response.setUpdatedAt(entity.getUpdatedAt());
+        response.setStatus(ResponseProcessingStatus.SUCCESS);
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.tu2l.pdf.storage;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.GeneratedPDFContentEntity;
+import com.tu2l.pdf.repository.PDFContentRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores PDF bytes in the {@code generated_pdf_contents} table, encoded with
+ * the configured {@link PDFCodec}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pdf.storage", name = "type", havingValue = "database", matchIfMissing = true)
+public class DatabasePDFContentStore implements PDFContentStore {
+    private final PDFContentRepository contentRepository;
+    private final PDFCodec codec;
+    private final int level;
+
+    public DatabasePDFContentStore(PDFContentRepository contentRepository, PDFServiceProperties properties) {
+        this.contentRepository = contentRepository;
+        this.codec = properties.getStorage().getCompression().getCodec();
+        this.level = properties.getStorage().getCompression().resolveLevel();
+        log.info("Using database PDF content store: codec={}, level={}", codec, level);
+    }
+
+    @Override
+    public void put(String contentHash, byte[] content) throws IOException {
+        byte[] encoded = codec.encode(content, level);
+        int inserted = contentRepository.insertIfAbsent(contentHash, encoded, content.length, codec.name());
+        log.debug("Stored PDF content: hash={}, size={} bytes, stored={} bytes, deduplicated={}", contentHash,
+                content.length, encoded.length, inserted == 0);
+    }
+
+    @Override
+    public Optional<Resource> load(String contentHash) {
+        return contentRepository.findById(contentHash).map(DatabasePDFContentStore::toResource);
+    }
+
+    @Override
+    public void delete(String contentHash) {
+        contentRepository.deleteById(contentHash);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    private static Resource toResource(GeneratedPDFContentEntity entity) {
+        ByteArrayResource stored = new ByteArrayResource(entity.getContent());
+        if (entity.getCodec() == null || entity.getCodec() == PDFCodec.NONE) {
+            return stored;
+        }
+        return new DecodedResource(stored, entity.getCodec(), entity.getSizeBytes(),
+                "database row " + entity.getContentHash());
+    }
+}
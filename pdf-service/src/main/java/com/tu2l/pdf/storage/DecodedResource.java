@@ -0,0 +1,46 @@
+package com.tu2l.pdf.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.InputStreamSource;
+
+/**
+ * Stored PDF content that is decompressed while it is read. Every call to
+ * {@link #getInputStream()} opens a fresh stream, so Spring can serve several
+ * ranges of the same resource.
+ */
+final class DecodedResource extends AbstractResource {
+    private final InputStreamSource stored;
+    private final PDFCodec codec;
+    private final long contentLength;
+    private final String description;
+
+    DecodedResource(InputStreamSource stored, PDFCodec codec, long contentLength, String description) {
+        this.stored = stored;
+        this.codec = codec;
+        this.contentLength = contentLength;
+        this.description = description;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return codec.decode(stored.getInputStream());
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public String getDescription() {
+        return codec + "-encoded PDF content from " + description;
+    }
+}
@@ -0,0 +1,154 @@
+package com.tu2l.pdf.storage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores PDF bytes as files on a local (or mounted) filesystem, sharded into
+ * two directory levels by hash prefix ({@code ab/cd/abcd....pdf}) so that no
+ * directory grows unbounded.
+ * <p>
+ * The file extension records the {@link PDFCodec}. Uncompressed content is
+ * the plain PDF, which keeps sendfile downloads possible; compressed files
+ * start with the original size as an 8-byte header, followed by the encoded
+ * bytes.
+ * <p>
+ * Files are written to a temporary sibling, flushed to disk and then moved
+ * into place atomically, so readers never observe a partially written PDF.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pdf.storage", name = "type", havingValue = "filesystem")
+public class FilesystemPDFContentStore implements PDFContentStore {
+    private static final int SIZE_HEADER_BYTES = Long.BYTES;
+
+    private final Path directory;
+    private final PDFCodec codec;
+    private final int level;
+
+    public FilesystemPDFContentStore(PDFServiceProperties properties) throws IOException {
+        this.directory = Path.of(properties.getStorage().getFilesystem().getDirectory()).toAbsolutePath().normalize();
+        this.codec = properties.getStorage().getCompression().getCodec();
+        this.level = properties.getStorage().getCompression().resolveLevel();
+        Files.createDirectories(directory);
+        log.info("Using filesystem PDF content store at {}: codec={}, level={}", directory, codec, level);
+    }
+
+    @Override
+    public void put(String contentHash, byte[] content) throws IOException {
+        if (find(contentHash) != null) {
+            log.debug("PDF content already stored: hash={}", contentHash);
+            return;
+        }
+        Path file = pathFor(contentHash, codec);
+        byte[] encoded = codec.encode(content, level);
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), contentHash, ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                if (codec != PDFCodec.NONE) {
+                    writeFully(channel, ByteBuffer.allocate(SIZE_HEADER_BYTES).putLong(0, content.length));
+                }
+                writeFully(channel, ByteBuffer.wrap(encoded));
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Stored PDF content: hash={}, size={} bytes, stored={} bytes", contentHash, content.length,
+                    encoded.length);
+        } catch (FileAlreadyExistsException e) {
+            // A concurrent writer stored the same content first
+            log.debug("PDF content stored concurrently: hash={}", contentHash);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Optional<Resource> load(String contentHash) throws IOException {
+        Path file = find(contentHash);
+        if (file == null) {
+            return Optional.empty();
+        }
+        PDFCodec fileCodec = codecOf(file);
+        if (fileCodec == PDFCodec.NONE) {
+            return Optional.of(new FileSystemResource(file));
+        }
+        long contentLength;
+        try (DataInputStream header = new DataInputStream(Files.newInputStream(file))) {
+            contentLength = header.readLong();
+        }
+        return Optional.of(new DecodedResource(() -> {
+            InputStream stored = Files.newInputStream(file);
+            stored.skipNBytes(SIZE_HEADER_BYTES);
+            return stored;
+        }, fileCodec, contentLength, "file [" + file + "]"));
+    }
+
+    @Override
+    public void delete(String contentHash) throws IOException {
+        for (PDFCodec candidate : PDFCodec.values()) {
+            Files.deleteIfExists(pathFor(contentHash, candidate));
+        }
+    }
+
+    Path pathFor(String contentHash, PDFCodec fileCodec) {
+        if (contentHash.length() < 4 || !contentHash.chars().allMatch(Character::isLetterOrDigit)) {
+            throw new IllegalArgumentException("Invalid content hash: " + contentHash);
+        }
+        return directory.resolve(contentHash.substring(0, 2))
+                .resolve(contentHash.substring(2, 4))
+                .resolve(contentHash + fileCodec.getFileExtension());
+    }
+
+    /**
+     * @return the stored file in whichever codec it was written with, checking
+     *         the configured codec first, or {@code null}
+     */
+    private Path find(String contentHash) {
+        Path preferred = pathFor(contentHash, codec);
+        if (Files.isRegularFile(preferred)) {
+            return preferred;
+        }
+        for (PDFCodec candidate : PDFCodec.values()) {
+            Path file = pathFor(contentHash, candidate);
+            if (candidate != codec && Files.isRegularFile(file)) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    private static PDFCodec codecOf(Path file) {
+        String name = file.getFileName().toString();
+        for (PDFCodec candidate : PDFCodec.values()) {
+            if (candidate != PDFCodec.NONE && name.endsWith(candidate.getFileExtension())) {
+                return candidate;
+            }
+        }
+        return PDFCodec.NONE;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tu2l.pdf.storage;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+
+/**
+ * Compression applied to PDF bytes at rest. The codec is recorded with every
+ * stored item, so changing the configured codec only affects new writes and
+ * existing content stays readable.
+ */
+public enum PDFCodec {
+    NONE(".pdf", 0) {
+        @Override
+        public byte[] encode(byte[] content, int level) {
+            return content;
+        }
+
+        @Override
+        public InputStream decode(InputStream stored) {
+            return stored;
+        }
+    },
+    DEFLATE(".pdf.deflate", Deflater.DEFAULT_COMPRESSION) {
+        @Override
+        public byte[] encode(byte[] content, int level) throws IOException {
+            Deflater deflater = new Deflater(level);
+            try {
+                ByteArrayOutputStream encoded = new ByteArrayOutputStream(content.length / 2);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(encoded, deflater, BUFFER_SIZE)) {
+                    out.write(content);
+                }
+                return encoded.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public InputStream decode(InputStream stored) {
+            return new InflaterInputStream(new BufferedInputStream(stored, BUFFER_SIZE));
+        }
+    },
+    ZSTD(".pdf.zst", 3) {
+        @Override
+        public byte[] encode(byte[] content, int level) {
+            return Zstd.compress(content, level);
+        }
+
+        @Override
+        public InputStream decode(InputStream stored) throws IOException {
+            return new ZstdInputStream(stored);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String fileExtension;
+    private final int defaultLevel;
+
+    PDFCodec(String fileExtension, int defaultLevel) {
+        this.fileExtension = fileExtension;
+        this.defaultLevel = defaultLevel;
+    }
+
+    public abstract byte[] encode(byte[] content, int level) throws IOException;
+
+    /**
+     * Wraps a stream of stored bytes so that reading it yields the original
+     * PDF; nothing is buffered beyond the codec's working window.
+     */
+    public abstract InputStream decode(InputStream stored) throws IOException;
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public int getDefaultLevel() {
+        return defaultLevel;
+    }
+}
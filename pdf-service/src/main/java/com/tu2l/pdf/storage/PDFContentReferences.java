@@ -0,0 +1,125 @@
+package com.tu2l.pdf.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.tu2l.pdf.repository.PDFContentReferenceRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference-counted access to {@link PDFContentStore}. Each saved PDF row holds
+ * one reference to its content hash: the bytes are written only when the first
+ * reference is taken and deleted when the last one is released, so repeated
+ * saves of an identical document are metadata-only.
+ * <p>
+ * Acquire and release run in the caller's transaction when there is one; the
+ * reference row stays locked until commit, so they never interleave for the
+ * same hash.
+ * <p>
+ * Content in a store outside the database is deleted only after the releasing
+ * transaction commits, so a rollback never leaves a reference to missing bytes.
+ */
+@Slf4j
+@Service
+public class PDFContentReferences {
+    private final PDFContentReferenceRepository referenceRepository;
+    private final PDFContentStore contentStore;
+    private final TransactionTemplate newTransaction;
+
+    public PDFContentReferences(PDFContentReferenceRepository referenceRepository, PDFContentStore contentStore,
+                                PlatformTransactionManager transactionManager) {
+        this.referenceRepository = referenceRepository;
+        this.contentStore = contentStore;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    void backfill() {
+        int backfilled = referenceRepository.backfillMissing();
+        if (backfilled > 0) {
+            log.info("Backfilled content references for {} stored PDFs", backfilled);
+        }
+    }
+
+    /**
+     * Takes a reference to the content, storing it if no row referenced it yet.
+     *
+     * @return {@code true} if the content was written by this call
+     */
+    @Transactional
+    public boolean acquire(String contentHash, byte[] content) throws IOException {
+        referenceRepository.increment(contentHash);
+        long refCount = referenceRepository.findRefCount(contentHash).orElseThrow();
+        if (refCount > 1) {
+            log.debug("PDF content already stored, reference added: hash={}, refCount={}", contentHash, refCount);
+            return false;
+        }
+        contentStore.put(contentHash, content);
+        return true;
+    }
+
+    /**
+     * Drops a reference and deletes the content once nothing refers to it.
+     *
+     * @return {@code true} if the content was deleted by this call, or will be
+     *         once the caller's transaction commits
+     */
+    @Transactional
+    public boolean release(String contentHash) throws IOException {
+        if (referenceRepository.decrement(contentHash) == 0) {
+            log.warn("Released a PDF content reference that was not held: hash={}", contentHash);
+            return false;
+        }
+        if (referenceRepository.deleteUnreferenced(contentHash) == 0) {
+            return false;
+        }
+        if (contentStore.isTransactional() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            contentStore.delete(contentHash);
+            log.debug("Deleted unreferenced PDF content: hash={}", contentHash);
+            return true;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteIfUnreferenced(contentHash);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Deletes content released by a committed transaction unless it was acquired
+     * again in the meantime. A temporary reference locks the row, so an acquire
+     * of the same hash waits and stores the content again after the delete.
+     */
+    private void deleteIfUnreferenced(String contentHash) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                referenceRepository.increment(contentHash);
+                try {
+                    if (referenceRepository.findRefCount(contentHash).orElseThrow() == 1) {
+                        contentStore.delete(contentHash);
+                        log.debug("Deleted unreferenced PDF content: hash={}", contentHash);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                referenceRepository.decrement(contentHash);
+                referenceRepository.deleteUnreferenced(contentHash);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete unreferenced PDF content: hash={}", contentHash, e);
+        }
+    }
+}
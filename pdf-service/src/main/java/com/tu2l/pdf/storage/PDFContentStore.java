@@ -0,0 +1,39 @@
+package com.tu2l.pdf.storage;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * Content-addressed store for PDF bytes, keyed by the SHA-256 of the content.
+ * Metadata rows only keep the hash as their content reference, so the backing
+ * storage can be swapped (database, local filesystem, object storage) without
+ * touching them.
+ * <p>
+ * Writing content that already exists is a no-op, so concurrent saves of an
+ * identical document never conflict.
+ */
+public interface PDFContentStore {
+
+    void put(String contentHash, byte[] content) throws IOException;
+
+    /**
+     * @return the stored content as a readable resource, or empty when no
+     *         content exists for the hash. File-backed stores return a
+     *         resource for which {@link Resource#isFile()} is {@code true},
+     *         which allows the download to be sent without copying through
+     *         the heap.
+     */
+    Optional<Resource> load(String contentHash) throws IOException;
+
+    void delete(String contentHash) throws IOException;
+
+    /**
+     * @return {@code true} if writes and deletes take part in the caller's
+     *         database transaction and are rolled back with it
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.tu2l.pdf.template;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.samskivert.mustache.Escapers;
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.MustacheException;
+import com.samskivert.mustache.Template;
+import com.tu2l.common.util.HtmlSanitizer;
+import com.tu2l.pdf.entity.PDFTemplateEntity;
+import com.tu2l.pdf.exception.PDFTemplateException;
+import com.tu2l.pdf.exception.PDFTemplateNotFoundException;
+import com.tu2l.pdf.repository.PDFTemplateRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compiles each stored template once per version and keeps it in memory.
+ * Rendering only checks the template's current version, so a template updated
+ * through any instance is recompiled on its next use everywhere.
+ * <p>
+ * Template sources are sanitized when stored, and rendered output is
+ * sanitized again: a tag placed inside an element or attribute name, as in
+ * {@code <scr{{x}}ipt>}, assembles markup the stored source never contained.
+ * The compiler keeps data itself inert: every value is HTML-escaped, values
+ * that start like a {@code javascript:}, {@code file:} or {@code data:} URL
+ * are defused, and tags that would bypass escaping ({@code {{{x}}}},
+ * {@code {{&x}}}, delimiter changes) are rejected.
+ */
+@Slf4j
+@Component
+public class PDFTemplateRegistry {
+    private static final Pattern UNESCAPED_TAG = Pattern.compile("\\{\\{\\s*[{&=]");
+    private static final Pattern UNSAFE_URL = unsafeUrlPattern("javascript:", "file:", "data:");
+    private static final String UNSAFE_URL_PREFIX = "unsafe:";
+
+    private final Mustache.Compiler compiler = Mustache.compiler()
+            .defaultValue("")
+            .withEscaper(PDFTemplateRegistry::escape);
+    private final PDFTemplateRepository repository;
+    private final Map<Long, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+
+    public PDFTemplateRegistry(PDFTemplateRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Renders the current version of a template.
+     *
+     * @param data values for the template, usually parsed from JSON
+     * @return the sanitized HTML
+     */
+    public String render(long templateId, Map<String, Object> data) throws PDFTemplateException,
+            PDFTemplateNotFoundException {
+        Integer version = repository.findVersionById(templateId).orElse(null);
+        if (version == null) {
+            compiled.remove(templateId);
+            throw new PDFTemplateNotFoundException(templateId);
+        }
+        CompiledTemplate template = compiled.get(templateId);
+        if (template == null || template.version() != version) {
+            template = load(templateId);
+        }
+        try {
+            return HtmlSanitizer.sanitize(template.template().execute(data != null ? data : Map.of()));
+        } catch (MustacheException e) {
+            throw new PDFTemplateException("Cannot render template " + templateId + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks that a template source compiles and uses no unescaped tags.
+     */
+    public Template compile(String source) throws PDFTemplateException {
+        if (UNESCAPED_TAG.matcher(source).find()) {
+            throw new PDFTemplateException("Unescaped tags and delimiter changes are not allowed in templates");
+        }
+        try {
+            return compiler.compile(source);
+        } catch (MustacheException e) {
+            throw new PDFTemplateException("Invalid template: " + e.getMessage(), e);
+        }
+    }
+
+    public void requireExists(long templateId) throws PDFTemplateNotFoundException {
+        if (repository.findVersionById(templateId).isEmpty()) {
+            throw new PDFTemplateNotFoundException(templateId);
+        }
+    }
+
+    public void evict(long templateId) {
+        compiled.remove(templateId);
+    }
+
+    public int getCompiledTemplates() {
+        return compiled.size();
+    }
+
+    private CompiledTemplate load(long templateId) throws PDFTemplateException, PDFTemplateNotFoundException {
+        PDFTemplateEntity entity = repository.findById(templateId)
+                .orElseThrow(() -> new PDFTemplateNotFoundException(templateId));
+        CompiledTemplate loaded = new CompiledTemplate(entity.getVersion(), compile(entity.getSource()));
+        // A concurrent load may have found a newer version already
+        CompiledTemplate current = compiled.merge(templateId, loaded,
+                (previous, candidate) -> candidate.version() >= previous.version() ? candidate : previous);
+        log.info("Template compiled: templateId={}, version={}", templateId, entity.getVersion());
+        return current;
+    }
+
+    private static String escape(String raw) {
+        String value = UNSAFE_URL.matcher(raw).find() ? UNSAFE_URL_PREFIX + raw : raw;
+        return Escapers.HTML.escape(value);
+    }
+
+    // Browsers skip leading control characters and spaces, and tabs and newlines within a scheme
+    private static Pattern unsafeUrlPattern(String... schemes) {
+        String alternatives = Arrays.stream(schemes)
+                .map(scheme -> scheme.chars()
+                        .mapToObj(c -> Pattern.quote(String.valueOf((char) c)))
+                        .collect(Collectors.joining("[\\t\\n\\r]*")))
+                .collect(Collectors.joining("|"));
+        return Pattern.compile("(?i)^[\\x00-\\x20]*(?:" + alternatives + ")");
+    }
+
+    private record CompiledTemplate(int version, Template template) {
+    }
+}
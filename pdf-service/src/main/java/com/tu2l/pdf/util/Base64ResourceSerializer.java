@@ -0,0 +1,33 @@
+package com.tu2l.pdf.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.Resource;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@link Resource} as a base64 JSON string, the same form Jackson
+ * uses for {@code byte[]}. The content is read and encoded in chunks straight
+ * into the generator's buffer, so neither the bytes nor their encoding are held
+ * in full.
+ */
+public class Base64ResourceSerializer extends StdSerializer<Resource> {
+
+    public Base64ResourceSerializer() {
+        super(Resource.class);
+    }
+
+    @Override
+    public void serialize(Resource value, JsonGenerator gen, SerializationContext ctxt) {
+        try (InputStream content = value.getInputStream()) {
+            gen.writeBinary(ctxt.getConfig().getBase64Variant(), content, -1);
+        } catch (IOException e) {
+            throw JacksonIOException.construct(e, gen);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.tu2l.pdf.util;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Helpers for the {@code UPDATE ... WHERE id IN (SELECT ... LIMIT n) RETURNING id}
+ * statements that workers on several instances use to claim rows of a shared
+ * queue table.
+ */
+public final class ClaimQueries {
+    private static final String SKIP_LOCKED = " for update skip locked";
+
+    private ClaimQueries() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the clause that makes the candidate sub-select skip rows locked
+     *         by concurrent claimers on PostgreSQL, or an empty string on
+     *         SQLite, which serialises writers and so needs none
+     */
+    public static String lockingClause(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product) ? SKIP_LOCKED : "";
+    }
+}
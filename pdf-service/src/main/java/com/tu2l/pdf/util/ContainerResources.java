@@ -0,0 +1,56 @@
+package com.tu2l.pdf.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reads the CPU quota granted to this process by its cgroup (v2 first, then
+ * v1) so that renderer pools can be sized to what the container may actually
+ * use rather than to the host's core count.
+ */
+@Slf4j
+public final class ContainerResources {
+    private static final Path CGROUP_V2_CPU_MAX = Path.of("/sys/fs/cgroup/cpu.max");
+    private static final Path CGROUP_V1_QUOTA = Path.of("/sys/fs/cgroup/cpu/cpu.cfs_quota_us");
+    private static final Path CGROUP_V1_PERIOD = Path.of("/sys/fs/cgroup/cpu/cpu.cfs_period_us");
+
+    private ContainerResources() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @return the cgroup CPU quota rounded up to whole CPUs, or
+     *         {@link Runtime#availableProcessors()} when no quota is set
+     */
+    public static int availableCpus() {
+        int fallback = Runtime.getRuntime().availableProcessors();
+        try {
+            if (Files.isReadable(CGROUP_V2_CPU_MAX)) {
+                // Format: "<quota|max> <period>"
+                String[] parts = Files.readString(CGROUP_V2_CPU_MAX).trim().split("\\s+");
+                if (parts.length == 2 && !"max".equals(parts[0])) {
+                    return toCpus(Long.parseLong(parts[0]), Long.parseLong(parts[1]), fallback);
+                }
+                return fallback;
+            }
+            if (Files.isReadable(CGROUP_V1_QUOTA) && Files.isReadable(CGROUP_V1_PERIOD)) {
+                long quota = Long.parseLong(Files.readString(CGROUP_V1_QUOTA).trim());
+                long period = Long.parseLong(Files.readString(CGROUP_V1_PERIOD).trim());
+                return toCpus(quota, period, fallback);
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Unable to read cgroup CPU quota, falling back to {} CPUs: {}", fallback, e.getMessage());
+        }
+        return fallback;
+    }
+
+    private static int toCpus(long quota, long period, int fallback) {
+        if (quota <= 0 || period <= 0) {
+            return fallback;
+        }
+        return (int) Math.max(1, (quota + period - 1) / period);
+    }
+}
@@ -0,0 +1,31 @@
+package com.tu2l.pdf.util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digests of generated documents. The hex digest identifies a PDF's
+ * bytes and is used as its strong HTTP entity tag. Idempotency keys and the
+ * requests sent with them are stored by the same digest.
+ */
+public final class ContentDigest {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private ContentDigest() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    public static String sha256Hex(byte[] content) {
+        return HexFormat.of().formatHex(sha256().digest(content));
+    }
+
+    // For content written incrementally, e.g. through a DigestOutputStream
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -4,47 +4,55 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Component;
 
-import com.tu2l.common.model.states.ResponseProcessingStatus;
 import com.tu2l.pdf.entity.GeneratedPDFEntity;
+import com.tu2l.pdf.model.RenderedPDF;
 import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
 import com.tu2l.pdf.model.response.GeneratePDFResponse;
+import com.tu2l.pdf.model.states.PDFStatus;
 
 @Component
 public class EntityMapper {
-    private static final String PLACEHOLDER_CONTENT = "PDF content placeholder";
 
-    public Optional<GeneratedPDFEntity> map(GeneratePDFResponse response, GenerateAndSavePDFRequest request) {
-        if (response == null || request == null) {
+    public Optional<GeneratedPDFEntity> map(RenderedPDF rendered, GenerateAndSavePDFRequest request) {
+        if (rendered == null || request == null) {
             return Optional.empty();
         }
 
-        GeneratedPDFEntity entity = new GeneratedPDFEntity();
-        entity.setFileName(request.getFileName());
-        entity.setNumberOfPages(request.getNumberOfPages());
-        entity.setUserId(request.getUserId());
-        entity.setEncodedPdf(response.getContent());
+        GeneratedPDFEntity entity = newEntity(request);
+        entity.setStatus(PDFStatus.SUCCESS);
+        entity.setContentHash(rendered.contentHash());
+        entity.setSizeBytes((long) rendered.content().length);
         return Optional.of(entity);
     }
 
-      public Optional<GeneratedPDFEntity> map(GenerateAndSavePDFRequest request) {
+    public Optional<GeneratedPDFEntity> map(GenerateAndSavePDFRequest request) {
         if (request == null) {
             return Optional.empty();
         }
 
-        GeneratedPDFEntity entity = new GeneratedPDFEntity();
-        entity.setFileName(request.getFileName());
-        entity.setNumberOfPages(request.getNumberOfPages());
-        entity.setUserId(request.getUserId());
-        entity.setEncodedPdf(PLACEHOLDER_CONTENT);
+        GeneratedPDFEntity entity = newEntity(request);
+        entity.setStatus(PDFStatus.PROCESSING);
         return Optional.of(entity);
     }
 
-     public GeneratePDFResponse map(GeneratedPDFEntity entity) {
+    /**
+     * Maps the metadata only; the caller attaches the content when the PDF is
+     * available.
+     */
+    public GeneratePDFResponse map(GeneratedPDFEntity entity) {
         GeneratePDFResponse response = new GeneratePDFResponse();
         response.setId(String.valueOf(entity.getId()));
         response.setFileName(entity.getFileName());
-        response.setContent(entity.getEncodedPdf());
-        response.setStatus(ResponseProcessingStatus.SUCCESS);
+        response.setStatus(entity.getStatus().toResponseStatus());
+        response.setMessage(entity.getErrorMessage());
         return response;
     }
+
+    private GeneratedPDFEntity newEntity(GenerateAndSavePDFRequest request) {
+        GeneratedPDFEntity entity = new GeneratedPDFEntity();
+        entity.setFileName(request.getFileName());
+        entity.setNumberOfPages(request.getNumberOfPages());
+        entity.setUserId(request.getUserId());
+        return entity;
+    }
 }
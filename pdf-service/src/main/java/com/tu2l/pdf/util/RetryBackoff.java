@@ -0,0 +1,26 @@
+package com.tu2l.pdf.util;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with "equal jitter": the delay doubles per attempt up to
+ * a cap, and a random half of it is dropped so that work which failed
+ * together does not retry in lockstep.
+ */
+public final class RetryBackoff {
+    private static final int MAX_DOUBLINGS = 20;
+
+    private RetryBackoff() {
+        throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
+    }
+
+    /**
+     * @param attempts attempts made so far, starting at 1
+     */
+    public static Duration delay(Duration base, Duration max, int attempts) {
+        long baseMillis = base.toMillis();
+        long delay = Math.min(max.toMillis(), baseMillis << Math.min(Math.max(attempts - 1, 0), MAX_DOUBLINGS));
+        return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+    }
+}
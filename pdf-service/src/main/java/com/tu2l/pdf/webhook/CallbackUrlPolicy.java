@@ -0,0 +1,77 @@
+package com.tu2l.pdf.webhook;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
+
+/**
+ * Decides which callback URLs webhooks may be sent to, so that a request
+ * cannot make the service POST to itself or to the network it runs in.
+ * <p>
+ * The host must be on {@code pdf.webhooks.allowed-hosts} when that list is
+ * set, and every address it resolves to must be public: loopback, private,
+ * link-local, unspecified and multicast addresses are rejected unless
+ * {@code pdf.webhooks.allow-private-addresses} is set. URLs are checked when
+ * a request is accepted and again before each delivery, since a host may
+ * resolve differently by then.
+ */
+@Component
+public class CallbackUrlPolicy {
+    private final Set<String> allowedHosts;
+    private final boolean allowPrivateAddresses;
+
+    public CallbackUrlPolicy(PDFServiceProperties properties) {
+        PDFServiceProperties.Webhooks settings = properties.getWebhooks();
+        this.allowedHosts = settings.getAllowedHosts().stream()
+                .map(host -> host.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        this.allowPrivateAddresses = settings.isAllowPrivateAddresses();
+    }
+
+    /**
+     * @throws UnknownHostException if the host does not resolve
+     */
+    public void check(URI callbackUrl) throws CallbackUrlRejectedException, UnknownHostException {
+        String scheme = callbackUrl.getScheme();
+        String host = callbackUrl.getHost();
+        if (scheme == null || !(scheme.equalsIgnoreCase("http") || scheme.equalsIgnoreCase("https"))
+                || host == null) {
+            throw new CallbackUrlRejectedException("Callback URL must be an absolute http(s) URL: " + callbackUrl);
+        }
+        if (!allowedHosts.isEmpty() && !allowedHosts.contains(host.toLowerCase(Locale.ROOT))) {
+            throw new CallbackUrlRejectedException("Callback host is not allowed: " + host);
+        }
+        if (allowPrivateAddresses) {
+            return;
+        }
+        for (InetAddress address : InetAddress.getAllByName(host)) {
+            if (isInternal(address)) {
+                throw new CallbackUrlRejectedException("Callback host resolves to a non-public address: " + host
+                        + " (" + address.getHostAddress() + ")");
+            }
+        }
+    }
+
+    private static boolean isInternal(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            // Unique local fc00::/7, the IPv6 counterpart of the private ranges
+            return (bytes[0] & 0xfe) == 0xfc;
+        }
+        // "This network" 0.0.0.0/8 and carrier-grade NAT 100.64.0.0/10
+        return bytes[0] == 0 || (bytes[0] == 100 && (bytes[1] & 0xc0) == 64);
+    }
+}
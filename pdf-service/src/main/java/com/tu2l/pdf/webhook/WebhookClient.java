@@ -0,0 +1,84 @@
+package com.tu2l.pdf.webhook;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
+
+/**
+ * POSTs batches of serialized events as a JSON array. A single
+ * {@link HttpClient} is shared by all senders, so connections to a callback
+ * host are kept alive and reused across batches and polls.
+ * <p>
+ * When {@code pdf.webhooks.signing-secret} is set, each request carries
+ * {@value #SIGNATURE_HEADER}: {@code sha256=<hex HMAC of the body>}. Every
+ * URL is checked against the {@link CallbackUrlPolicy} before it is sent to.
+ */
+@Component
+public class WebhookClient {
+    static final String SIGNATURE_HEADER = "X-PDF-Signature";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final SecretKeySpec signingKey;
+    private final CallbackUrlPolicy callbackUrlPolicy;
+
+    public WebhookClient(PDFServiceProperties properties, CallbackUrlPolicy callbackUrlPolicy) {
+        PDFServiceProperties.Webhooks settings = properties.getWebhooks();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(settings.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        this.requestTimeout = settings.getRequestTimeout();
+        String secret = settings.getSigningSecret();
+        this.signingKey = secret == null || secret.isBlank() ? null
+                : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.callbackUrlPolicy = callbackUrlPolicy;
+    }
+
+    /**
+     * @param payloads serialized JSON objects
+     * @return the HTTP status of the response
+     * @throws IOException if the callback host could not be reached or did
+     *                     not answer in time
+     * @throws CallbackUrlRejectedException if the URL may not be sent to
+     */
+    public int post(URI callbackUrl, List<String> payloads) throws IOException, InterruptedException,
+            CallbackUrlRejectedException {
+        callbackUrlPolicy.check(callbackUrl);
+        byte[] body = ("[" + String.join(",", payloads) + "]").getBytes(StandardCharsets.UTF_8);
+        HttpRequest.Builder request = HttpRequest.newBuilder(callbackUrl)
+                .timeout(requestTimeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        if (signingKey != null) {
+            request.header(SIGNATURE_HEADER, "sha256=" + sign(body));
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private String sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return HexFormat.of().formatHex(mac.doFinal(body));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign webhook payload", e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.tu2l.pdf.webhook;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.WebhookDeliveryEntity;
+import com.tu2l.pdf.model.response.PDFJobEventResponse;
+import com.tu2l.pdf.model.states.WebhookDeliveryStatus;
+import com.tu2l.pdf.repository.WebhookDeliveryRepository;
+import com.tu2l.pdf.util.ClaimQueries;
+import com.tu2l.pdf.util.RetryBackoff;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Outbox of completion callbacks in {@code pdf_webhook_deliveries}. Deliveries
+ * are claimed the same way as render jobs, except that the lease is simply
+ * {@code next_attempt_at} moved into the future: a sender that dies leaves
+ * its deliveries to be claimed again once the lease has passed. Delivery is
+ * therefore at least once.
+ */
+@Slf4j
+@Service
+public class WebhookDeliveryService {
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+    private static final String CLAIM_SQL = "update pdf_webhook_deliveries set lease_owner = ?, "
+            + "next_attempt_at = ?, attempts = attempts + 1 where id in (select id from pdf_webhook_deliveries "
+            + "where status = 'PENDING' and next_attempt_at <= ? order by next_attempt_at, id limit ?%s) "
+            + "returning id";
+
+    private final WebhookDeliveryRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+    private final PDFServiceProperties.Webhooks settings;
+    private String claimSql;
+
+    public WebhookDeliveryService(WebhookDeliveryRepository repository, JdbcTemplate jdbcTemplate,
+                                  JsonMapper jsonMapper, PDFServiceProperties properties) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+        this.settings = properties.getWebhooks();
+    }
+
+    @PostConstruct
+    void prepareClaimQuery() {
+        claimSql = CLAIM_SQL.formatted(ClaimQueries.lockingClause(jdbcTemplate));
+    }
+
+    /**
+     * Records {@code event} for delivery to {@code callbackUrl}. Call within
+     * the transaction that produces the event.
+     */
+    @Transactional
+    public void enqueue(String callbackUrl, long pdfId, PDFJobEventResponse event) {
+        if (!settings.isEnabled()) {
+            log.debug("Webhooks disabled, callback not recorded: pdfId={}", pdfId);
+            return;
+        }
+        WebhookDeliveryEntity delivery = new WebhookDeliveryEntity();
+        delivery.setPdfId(pdfId);
+        delivery.setCallbackUrl(callbackUrl);
+        delivery.setPayload(jsonMapper.writeValueAsString(event));
+        delivery.setStatus(WebhookDeliveryStatus.PENDING);
+        delivery.setNextAttemptAt(System.currentTimeMillis());
+        repository.save(delivery);
+        log.debug("Webhook delivery queued: pdfId={}, state={}", pdfId, event.getState());
+    }
+
+    /**
+     * Leases up to {@code limit} due deliveries to {@code owner}.
+     */
+    public List<WebhookDeliveryEntity> claim(String owner, int limit) {
+        long now = System.currentTimeMillis();
+        List<Long> ids = jdbcTemplate.queryForList(claimSql, Long.class, owner,
+                now + settings.getLeaseDuration().toMillis(), now, limit);
+        return ids.isEmpty() ? List.of() : repository.findAllById(ids);
+    }
+
+    public int delivered(Collection<Long> deliveryIds, String owner) {
+        return deliveryIds.isEmpty() ? 0 : repository.deleteClaimed(deliveryIds, owner);
+    }
+
+    /**
+     * Schedules another attempt with exponential backoff, or gives the
+     * delivery up once attempts are exhausted or {@code retryable} is false.
+     *
+     * @return {@code true} if the delivery was rescheduled
+     */
+    public boolean failed(WebhookDeliveryEntity delivery, String owner, String error, boolean retryable) {
+        String message = truncate(String.valueOf(error));
+        if (retryable && delivery.getAttempts() < settings.getMaxAttempts()) {
+            long nextAttemptAt = System.currentTimeMillis() + RetryBackoff.delay(settings.getRetryBackoff(),
+                    settings.getMaxRetryBackoff(), delivery.getAttempts()).toMillis();
+            return repository.reschedule(delivery.getId(), owner, nextAttemptAt, message) > 0;
+        }
+        repository.markFailed(delivery.getId(), owner, message);
+        return false;
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_MESSAGE_LENGTH ? message : message.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+    }
+}
@@ -0,0 +1,199 @@
+package com.tu2l.pdf.webhook;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.WebhookDeliveryEntity;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers queued completion callbacks on its own threads, away from the
+ * render workers and the scheduler.
+ * <p>
+ * Each poll claims the due deliveries and groups them by callback host. Hosts
+ * are delivered to in parallel; for one host, events for the same URL go out
+ * in batches of {@code pdf.webhooks.batch-size}, one request after another
+ * over the host's kept-alive connection. A host that cannot be reached is not
+ * tried again in the same round: all of its deliveries are rescheduled. The
+ * next round is claimed once the current one has finished, so a host never
+ * receives batches from two rounds of this instance at once.
+ * <p>
+ * A 2xx response confirms the whole batch. 408, 429 and 5xx responses and
+ * network errors are retried with backoff; any other status means the
+ * receiver rejected the events and they are given up.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "pdf.webhooks", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WebhookSender {
+    private static final String THREAD_NAME_PREFIX = "pdf-webhook-";
+
+    private final WebhookDeliveryService deliveryService;
+    private final WebhookClient client;
+    private final String senderId = newSenderId();
+    private final int batchSize;
+    private final int maxDeliveriesPerPoll;
+    private final ExecutorService executor;
+    private final AtomicBoolean roundInFlight = new AtomicBoolean();
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+
+    public WebhookSender(WebhookDeliveryService deliveryService, WebhookClient client,
+                         PDFServiceProperties properties, MeterRegistry meterRegistry) {
+        PDFServiceProperties.Webhooks settings = properties.getWebhooks();
+        this.deliveryService = deliveryService;
+        this.client = client;
+        this.batchSize = Math.max(1, settings.getBatchSize());
+        this.maxDeliveriesPerPoll = Math.max(1, settings.getMaxDeliveriesPerPoll());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, settings.getConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.delivered = Counter.builder("pdf.webhooks.deliveries").tag("result", "delivered")
+                .register(meterRegistry);
+        this.retried = Counter.builder("pdf.webhooks.deliveries").tag("result", "retried").register(meterRegistry);
+        this.failed = Counter.builder("pdf.webhooks.deliveries").tag("result", "failed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${pdf.webhooks.poll-interval:1s}")
+    public void poll() {
+        if (!roundInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<WebhookDeliveryEntity> deliveries = deliveryService.claim(senderId, maxDeliveriesPerPoll);
+            if (deliveries.isEmpty()) {
+                roundInFlight.set(false);
+                return;
+            }
+            Map<String, List<WebhookDeliveryEntity>> byHost = deliveries.stream()
+                    .collect(Collectors.groupingBy(delivery -> hostOf(delivery.getCallbackUrl()),
+                            LinkedHashMap::new, Collectors.toList()));
+            log.debug("Webhook round claimed: deliveries={}, hosts={}", deliveries.size(), byHost.size());
+            CompletableFuture.allOf(byHost.values().stream()
+                            .map(forHost -> CompletableFuture.runAsync(() -> deliverToHost(forHost), executor))
+                            .toArray(CompletableFuture[]::new))
+                    .whenComplete((result, error) -> roundInFlight.set(false));
+        } catch (RuntimeException e) {
+            roundInFlight.set(false);
+            log.error("Polling for webhook deliveries failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Claimed deliveries that were not reported are sent again after their lease
+        executor.shutdownNow();
+    }
+
+    private void deliverToHost(List<WebhookDeliveryEntity> deliveries) {
+        Map<String, List<WebhookDeliveryEntity>> byUrl = deliveries.stream()
+                .collect(Collectors.groupingBy(WebhookDeliveryEntity::getCallbackUrl, LinkedHashMap::new,
+                        Collectors.toList()));
+        List<List<WebhookDeliveryEntity>> batches = new ArrayList<>();
+        byUrl.values().forEach(forUrl -> {
+            for (int i = 0; i < forUrl.size(); i += batchSize) {
+                batches.add(forUrl.subList(i, Math.min(i + batchSize, forUrl.size())));
+            }
+        });
+        for (int i = 0; i < batches.size(); i++) {
+            List<WebhookDeliveryEntity> batch = batches.get(i);
+            try {
+                if (!deliverBatch(batch)) {
+                    // Unreachable host: spare it the rest of the round
+                    String error = "Not attempted, " + batch.get(0).getCallbackUrl() + " unreachable";
+                    batches.subList(i + 1, batches.size()).forEach(rest -> recordFailure(rest, error, true));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Recording webhook outcome failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return {@code false} if the callback host could not be reached
+     */
+    private boolean deliverBatch(List<WebhookDeliveryEntity> batch) throws InterruptedException {
+        String url = batch.get(0).getCallbackUrl();
+        int status;
+        try {
+            status = client.post(URI.create(url), batch.stream().map(WebhookDeliveryEntity::getPayload).toList());
+        } catch (IllegalArgumentException e) {
+            recordFailure(batch, "Invalid callback URL: " + e.getMessage(), false);
+            return true;
+        } catch (CallbackUrlRejectedException e) {
+            recordFailure(batch, e.getMessage(), false);
+            return true;
+        } catch (IOException e) {
+            String error = e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage()
+                    : e.getClass().getSimpleName();
+            recordFailure(batch, error, true);
+            return false;
+        }
+        if (status >= 200 && status < 300) {
+            deliveryService.delivered(batch.stream().map(WebhookDeliveryEntity::getId).toList(), senderId);
+            delivered.increment(batch.size());
+            log.debug("Webhook batch delivered: url={}, events={}", url, batch.size());
+        } else {
+            recordFailure(batch, "HTTP " + status, status == 408 || status == 429 || status >= 500);
+        }
+        return true;
+    }
+
+    private void recordFailure(List<WebhookDeliveryEntity> batch, String error, boolean retryable) {
+        for (WebhookDeliveryEntity delivery : batch) {
+            if (deliveryService.failed(delivery, senderId, error, retryable)) {
+                retried.increment();
+            } else {
+                failed.increment();
+                log.warn("Webhook delivery failed: deliveryId={}, pdfId={}, url={}, attempts={}, error={}",
+                        delivery.getId(), delivery.getPdfId(), delivery.getCallbackUrl(), delivery.getAttempts(),
+                        error);
+            }
+        }
+        log.debug("Webhook batch not delivered: url={}, events={}, retryable={}, error={}",
+                batch.get(0).getCallbackUrl(), batch.size(), retryable, error);
+    }
+
+    private static String hostOf(String callbackUrl) {
+        try {
+            String authority = URI.create(callbackUrl).getAuthority();
+            return authority != null ? authority.toLowerCase() : callbackUrl;
+        } catch (IllegalArgumentException e) {
+            return callbackUrl;
+        }
+    }
+
+    private static String newSenderId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "localhost");
+        return host + "-" + ProcessHandle.current().pid() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,59 @@
+package com.tu2l.pdf.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.AdmissionRejectedException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AdmissionControllerTest {
+
+    @Test
+    public void backgroundRendersLeaveReservedSlotsToInteractive() throws Exception {
+        AdmissionController admission = admission(3, 1);
+        assertEquals(2, admission.getMaxBackgroundRenders());
+
+        AdmissionController.Permit first = admission.acquireRender(RenderLane.BACKGROUND);
+        AdmissionController.Permit second = admission.acquireRender(RenderLane.BACKGROUND);
+        CompletableFuture<AdmissionController.Permit> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.acquireRender(RenderLane.BACKGROUND);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try (AdmissionController.Permit interactive = admission.acquireRender(RenderLane.INTERACTIVE)) {
+            assertFalse(third.isDone());
+            assertThrows(AdmissionRejectedException.class, () -> admission.acquireRender(RenderLane.INTERACTIVE));
+        }
+        first.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        second.close();
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    public void keepsOneBackgroundRenderWhenEverySlotIsReserved() {
+        assertEquals(1, admission(1, 1).getMaxBackgroundRenders());
+    }
+
+    private static AdmissionController admission(int maxConcurrentRenders, int reservedInteractiveRenders) {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getAdmission().setMaxConcurrentRenders(maxConcurrentRenders);
+        properties.getAdmission().setReservedInteractiveRenders(reservedInteractiveRenders);
+        properties.getAdmission().setMaxQueueWait(Duration.ofMillis(50));
+        return new AdmissionController(properties, new SimpleMeterRegistry(), new StandardEnvironment());
+    }
+}
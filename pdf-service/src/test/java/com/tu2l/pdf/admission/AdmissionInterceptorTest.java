@@ -0,0 +1,52 @@
+package com.tu2l.pdf.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PayloadLengthRequiredException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AdmissionInterceptorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionInterceptor interceptor = new AdmissionInterceptor(admission());
+
+    @Test
+    public void refusesChunkedBodies() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/generate");
+        request.addHeader("Transfer-Encoding", "chunked");
+
+        assertThrows(PayloadLengthRequiredException.class,
+                () -> interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        assertEquals(0, inFlightBytes());
+    }
+
+    @Test
+    public void chargesContentLengthUntilCompletion() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/generate");
+        request.setContent(new byte[4096]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, null);
+        assertEquals(4096, inFlightBytes());
+        interceptor.afterCompletion(request, response, null, null);
+        assertEquals(0, inFlightBytes());
+    }
+
+    private double inFlightBytes() {
+        return meterRegistry.get("pdf.admission.payload.inflight.bytes").gauge().value();
+    }
+
+    private AdmissionController admission() {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getAdmission().setMaxInFlightPayload(DataSize.ofMegabytes(1));
+        return new AdmissionController(properties, meterRegistry, new StandardEnvironment());
+    }
+}
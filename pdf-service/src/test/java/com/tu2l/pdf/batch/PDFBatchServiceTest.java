@@ -0,0 +1,135 @@
+package com.tu2l.pdf.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.tu2l.pdf.admission.AdmissionController;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.model.RenderedPDF;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.service.impl.PDFRenderer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import tools.jackson.databind.json.JsonMapper;
+
+public class PDFBatchServiceTest {
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+    private final PDFRenderer renderer = mock(PDFRenderer.class);
+    private final PDFBatchService batchService = batchService(2);
+
+    @AfterEach
+    public void tearDown() {
+        batchService.shutdown();
+        validatorFactory.close();
+    }
+
+    @Test
+    public void reportsFailedItemsWithoutFailingTheBatch() throws Exception {
+        when(renderer.render(any(), any())).thenAnswer(invocation -> {
+            GeneratePDFRequest request = invocation.getArgument(0);
+            return pdf(request.getFileName());
+        });
+        doThrow(new PDFException("Render failed")).when(renderer)
+                .render(argThat(request -> request.getFileName().equals("broken")), any());
+        GeneratePDFRequest invalid = item("invalid");
+        invalid.setContent(null);
+        List<GeneratePDFRequest> items = Arrays.asList(item("a"), invalid, item("broken"), null, item("b"));
+
+        List<BatchItemResult> results = new ArrayList<>();
+        boolean[] finished = { false };
+        batchService.render(items, new BatchResultWriter() {
+            @Override
+            public void write(BatchItemResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void finish() {
+                finished[0] = true;
+            }
+        });
+
+        assertTrue(finished[0]);
+        assertEquals(items.size(), results.size());
+        results.sort((left, right) -> Integer.compare(left.index(), right.index()));
+        assertTrue(results.get(0).succeeded());
+        assertTrue(results.get(1).error().startsWith("contentOrTemplate: "));
+        assertEquals("Render failed", results.get(2).error());
+        assertFalse(results.get(3).succeeded());
+        assertTrue(results.get(4).succeeded());
+    }
+
+    @Test
+    public void writesZipWithManifest() throws Exception {
+        when(renderer.render(any(), any())).thenAnswer(invocation -> pdf("same"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchService.render(List.of(item("same"), item("same")),
+                BatchFormat.ZIP.newWriter(out, BatchFormat.ZIP.newContentType(), JsonMapper.builder().build()));
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("same.pdf")) {
+                    assertEquals("%PDF-same", new String(zip.readAllBytes(), StandardCharsets.US_ASCII));
+                }
+            }
+        }
+        assertEquals(List.of("same.pdf", "same (2).pdf", ZipBatchWriter.MANIFEST), entries);
+    }
+
+    @Test
+    public void rejectsOversizedBatches() {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        List<GeneratePDFRequest> items = new ArrayList<>();
+        for (int i = 0; i <= properties.getBatch().getMaxItems(); i++) {
+            items.add(item("item-" + i));
+        }
+        assertThrows(PDFException.class, () -> batchService.checkSize(items));
+    }
+
+    private PDFBatchService batchService(int concurrency) {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getBatch().setConcurrency(concurrency);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StandardEnvironment environment = new StandardEnvironment();
+        return new PDFBatchService(renderer, validatorFactory.getValidator(), properties,
+                new AdmissionController(properties, meterRegistry, environment), meterRegistry, environment);
+    }
+
+    private static GeneratePDFRequest item(String fileName) {
+        GeneratePDFRequest request = new GeneratePDFRequest();
+        request.setContent("PGh0bWw+PC9odG1sPg==");
+        request.setFileName(fileName);
+        request.setNumberOfPages(1);
+        return request;
+    }
+
+    private static RenderedPDF pdf(String fileName) {
+        byte[] content = ("%PDF-" + fileName).getBytes(StandardCharsets.US_ASCII);
+        return new RenderedPDF(fileName, content, "hash-" + fileName, null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.tu2l.pdf.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tu2l.common.util.HtmlSanitizer;
+
+/**
+ * Compares {@link HtmlSanitizer} with the chain of regular expressions it
+ * replaced, on the benchmark resume and on a copy repeated to about 200 KB.
+ * Run with {@code -prof gc} to compare allocation as well.
+ * <p>
+ * Run from the IDE via {@link #main(String[])}, or as described on
+ * {@link PDFGeneratorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlSanitizerBenchmark {
+    private static final int LARGE_SIZE = 200 * 1024;
+
+    @Param({ "resume", "large" })
+    private String sample;
+
+    private String html;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String resume = PDFGeneratorBenchmark.loadResource("/benchmark/resume.html");
+        html = switch (sample) {
+            case "resume" -> resume;
+            case "large" -> resume.repeat(Math.max(1, LARGE_SIZE / resume.length()));
+            default -> throw new IllegalArgumentException("Unknown sample: " + sample);
+        };
+    }
+
+    @Benchmark
+    public String regex() {
+        String sanitized = html.replaceAll("(?i)<script[^>]*>.*?</script>", "");
+        sanitized = sanitized.replaceAll("(?i)\\s*on\\w+\\s*=\\s*['\"][^'\"]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?javascript:[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?file://[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)(href|src)\\s*=\\s*['\"]?data:[^'\"\\s>]*['\"]?", "");
+        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*>.*?</iframe>", "");
+        sanitized = sanitized.replaceAll("(?i)<iframe[^>]*/?>", "");
+        sanitized = sanitized.replaceAll("(?i)<(object|embed)[^>]*>.*?</(object|embed)>", "");
+        return sanitized.replaceAll("(?i)<(object|embed)[^>]*/?>", "");
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return HtmlSanitizer.sanitize(html);
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        HtmlSanitizer.sanitize(new StringReader(html), Writer.nullWriter());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HtmlSanitizerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.tu2l.pdf.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.generator.HtmlSource;
+import com.tu2l.pdf.generator.OpenHtmlToPdfGenerator;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.storage.PDFCodec;
+
+/**
+ * Compares the {@link PDFCodec}s used for stored PDFs on real resumes: one
+ * produced by wkhtmltopdf and one rendered in-process by openhtmltopdf. Each
+ * trial prints the compression ratio, so CPU cost and storage saving can be
+ * read from the same run.
+ * <p>
+ * Run from the IDE via {@link #main(String[])}, or as described on
+ * {@link PDFGeneratorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PDFCodecBenchmark {
+    @Param({ "wkhtmltopdf", "openhtmltopdf" })
+    private String sample;
+
+    @Param({ "NONE:0", "DEFLATE:1", "DEFLATE:6", "ZSTD:1", "ZSTD:3", "ZSTD:9", "ZSTD:19" })
+    private String codecLevel;
+
+    private PDFCodec codec;
+    private int level;
+    private byte[] pdf;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String[] parts = codecLevel.split(":");
+        codec = PDFCodec.valueOf(parts[0]);
+        level = Integer.parseInt(parts[1]);
+        pdf = switch (sample) {
+            case "wkhtmltopdf" -> loadBytes("/benchmark/resume-wkhtmltopdf.pdf");
+            case "openhtmltopdf" -> new OpenHtmlToPdfGenerator(new PDFServiceProperties())
+                    .generatePDF(PDFGeneratorConfiguration.builder()
+                            .html(HtmlSource.of(PDFGeneratorBenchmark.loadResource("/benchmark/resume.html")))
+                            .fileName("benchmark-resume")
+                            .numberOfPagesToGenerate(1)
+                            .layoutParams(new LayoutParams())
+                            .build());
+            default -> throw new IllegalArgumentException("Unknown sample: " + sample);
+        };
+        encoded = codec.encode(pdf, level);
+        System.out.printf("%n%s %s level %d: %d -> %d bytes (%.1f%% of original)%n", sample, codec, level,
+                pdf.length, encoded.length, 100.0 * encoded.length / pdf.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(pdf, level);
+    }
+
+    @Benchmark
+    public long decode() throws IOException {
+        try (InputStream in = codec.decode(new ByteArrayInputStream(encoded))) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static byte[] loadBytes(String name) throws IOException {
+        try (InputStream in = PDFCodecBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Benchmark resource not found: " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PDFCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.tu2l.pdf.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.generator.HtmlSource;
+import com.tu2l.pdf.generator.OpenHtmlToPdfGenerator;
+import com.tu2l.pdf.generator.PDFGenerator;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.generator.WkhtmlToPdfGenerator;
+import com.tu2l.pdf.generator.WkhtmlToPdfPoolGenerator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Compares render latency of the available {@link PDFGenerator} engines on a
+ * typical single-page resume. The wkhtmltopdf engines need the binary on the
+ * PATH (or {@code -Dwkhtmltopdf.binary=...}).
+ * <p>
+ * Run with: {@code mvn -pl pdf-service -am test-compile} followed by
+ * {@code mvn -pl pdf-service exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.tu2l.pdf.benchmark.PDFGeneratorBenchmark}, or from the
+ * IDE via {@link #main(String[])}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PDFGeneratorBenchmark {
+    @Param({ "openhtmltopdf", "wkhtmltopdf", "wkhtmltopdf-pool" })
+    private String engine;
+
+    private PDFGenerator generator;
+    private PDFGeneratorConfiguration configuration;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getGenerator().getWkhtmltopdf()
+                .setBinary(System.getProperty("wkhtmltopdf.binary", "wkhtmltopdf"));
+
+        generator = switch (engine) {
+            case "openhtmltopdf" -> new OpenHtmlToPdfGenerator(properties);
+            case "wkhtmltopdf" -> new WkhtmlToPdfGenerator(properties);
+            case "wkhtmltopdf-pool" -> new WkhtmlToPdfPoolGenerator(properties, new SimpleMeterRegistry());
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+        configuration = PDFGeneratorConfiguration.builder()
+                .html(HtmlSource.of(loadResource("/benchmark/resume.html")))
+                .fileName("benchmark-resume")
+                .numberOfPagesToGenerate(1)
+                .layoutParams(new LayoutParams())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (generator instanceof WkhtmlToPdfPoolGenerator pool) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] render() throws Exception {
+        return generator.generatePDF(configuration);
+    }
+
+    static String loadResource(String name) throws IOException {
+        try (InputStream in = PDFGeneratorBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Benchmark resource not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PDFGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
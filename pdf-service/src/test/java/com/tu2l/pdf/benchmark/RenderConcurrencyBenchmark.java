@@ -0,0 +1,143 @@
+package com.tu2l.pdf.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.tu2l.common.util.CommonUtil;
+import com.tu2l.pdf.admission.AdmissionController;
+import com.tu2l.pdf.admission.RenderLane;
+import com.tu2l.pdf.cache.RenderCache;
+import com.tu2l.pdf.cache.RenderCoalescer;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.generator.PDFGenerator;
+import com.tu2l.pdf.model.request.GeneratePDFRequest;
+import com.tu2l.pdf.service.impl.PDFRenderer;
+import com.tu2l.pdf.template.PDFTemplateRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Load test of render orchestration with a stub renderer that blocks like
+ * {@code process.waitFor()}. Each request spends {@link #IO_MILLIS} in blocking
+ * I/O outside the renderer (reading the upload, storing the result) and
+ * {@link #RENDER_MILLIS} in the renderer, which is capped at
+ * {@link #RENDER_LIMIT} concurrent renders by {@link AdmissionController}.
+ * <p>
+ * {@code platform-8} is a fixed pool sized like Spring's default task
+ * executor, {@code platform-200} like Tomcat's default, and {@code virtual}
+ * runs every request on its own virtual thread. The score is milliseconds per
+ * request, so the render-bound optimum is {@code RENDER_MILLIS / RENDER_LIMIT}.
+ * {@code virtual} needs a JDK 21 runtime; run as described on
+ * {@link PDFGeneratorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RenderConcurrencyBenchmark {
+    private static final int REQUESTS = 400;
+    private static final int RENDER_LIMIT = 4;
+    private static final long IO_MILLIS = 50;
+    private static final long RENDER_MILLIS = 25;
+    private static final byte[] STUB_PDF = "%PDF-1.4 stub".getBytes(StandardCharsets.US_ASCII);
+
+    @Param({ "platform-8", "platform-200", "virtual" })
+    private String threading;
+
+    private ExecutorService executor;
+    private PDFRenderer renderer;
+    private final AtomicLong requestCounter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        executor = switch (threading) {
+            case "platform-8" -> Executors.newFixedThreadPool(8);
+            case "platform-200" -> Executors.newFixedThreadPool(200);
+            case "virtual" -> (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            default -> throw new IllegalArgumentException("Unknown threading: " + threading);
+        };
+
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getGenerator().setEngine("stub");
+        properties.getCache().setEnabled(false);
+        properties.getAdmission().setMaxConcurrentRenders(RENDER_LIMIT);
+        properties.getAdmission().setReservedInteractiveRenders(0); // every request uses the background lane
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PDFGenerator stub = configuration -> {
+            Thread.sleep(RENDER_MILLIS);
+            return STUB_PDF;
+        };
+        renderer = new PDFRenderer(new CommonUtil(), Map.of("stub", stub), properties,
+                new RenderCache(properties, meterRegistry), new RenderCoalescer(meterRegistry),
+                new AdmissionController(properties, meterRegistry, new StandardEnvironment()),
+                new PDFTemplateRegistry(null)); // requests carry content, so no template is looked up
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS)
+    public void burst() {
+        CompletableFuture<?>[] requests = new CompletableFuture<?>[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = CompletableFuture.runAsync(this::handleRequest, executor);
+        }
+        CompletableFuture.allOf(requests).join();
+    }
+
+    private void handleRequest() {
+        try {
+            Thread.sleep(IO_MILLIS / 2);
+            renderer.render(request(requestCounter.incrementAndGet()), RenderLane.BACKGROUND);
+            Thread.sleep(IO_MILLIS / 2);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static GeneratePDFRequest request(long id) {
+        String html = "<html><body><h1>Resume " + id + "</h1><p>Experience</p></body></html>";
+        GeneratePDFRequest request = new GeneratePDFRequest();
+        request.setContent(Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8)));
+        request.setFileName("resume-" + id);
+        request.setNumberOfPages(1);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RenderConcurrencyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
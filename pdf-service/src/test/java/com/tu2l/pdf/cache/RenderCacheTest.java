@@ -0,0 +1,67 @@
+package com.tu2l.pdf.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RenderCacheTest {
+    private static final int WRITERS = 8;
+    private static final int KEYS = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void concurrentWritersOfOneKeyCountItsFileOnce() throws Exception {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getCache().getDisk().setEnabled(true);
+        properties.getCache().getDisk().setDirectory(directory.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RenderCache cache = new RenderCache(properties, meterRegistry);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            for (int i = 0; i < KEYS; i++) {
+                String key = "%02x-render-%d".formatted(i % 256, i);
+                byte[] pdf = new byte[1024 + i];
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> writes = new ArrayList<>();
+                for (int w = 0; w < WRITERS; w++) {
+                    writes.add(executor.submit(() -> {
+                        start.await();
+                        cache.put(key, pdf);
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> write : writes) {
+                    write.get(5, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long onDisk;
+        try (Stream<Path> files = Files.walk(directory)) {
+            onDisk = files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+        assertEquals(onDisk, meterRegistry.get("pdf.render.cache.size.bytes").tag("tier", "disk").gauge().value());
+    }
+}
@@ -0,0 +1,148 @@
+package com.tu2l.pdf.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.exception.AdmissionRejectedException;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.exception.PDFRenderTimeoutException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RenderCoalescerTest {
+    private static final int REQUESTS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RenderCoalescer coalescer = new RenderCoalescer(meterRegistry);
+
+    @Test
+    public void concurrentRequestsForOneKeyShareOneRender() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] pdf = { 1, 2, 3 };
+
+        List<Future<byte[]>> results = submit(() -> coalescer.render("key", null, () -> {
+            renders.incrementAndGet();
+            release.await();
+            return pdf;
+        }));
+        awaitCoalesced(REQUESTS - 1);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            assertArrayEquals(pdf, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, renders.get());
+        // Once completed the render is no longer shared; later requests go to the render cache
+        assertArrayEquals(new byte[] { 4 }, coalescer.render("key", null, () -> new byte[] { 4 }));
+    }
+
+    @Test
+    public void failureIsDeliveredToEveryWaitingRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PDFException failure = new PDFException("render failed");
+
+        List<Future<byte[]>> results = submit(() -> coalescer.render("key", null, () -> {
+            release.await();
+            throw failure;
+        }));
+        awaitCoalesced(REQUESTS - 1);
+        release.countDown();
+
+        for (Future<byte[]> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    @Test
+    public void joinerGivesUpAtItsOwnDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<byte[]> leader = executor.submit(() -> coalescer.render("key", null, () -> {
+            release.await();
+            return new byte[] { 1 };
+        }));
+        awaitInFlight();
+
+        assertThrows(PDFRenderTimeoutException.class,
+                () -> coalescer.render("key", Duration.ofMillis(50), () -> new byte[] { 2 }));
+        release.countDown();
+        assertArrayEquals(new byte[] { 1 }, leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    @Test
+    public void joinersRenderAgainWhenTheLeaderIsRejectedByAdmission() throws Exception {
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] pdf = { 1, 2, 3 };
+
+        List<Future<byte[]>> results = submit(() -> coalescer.render("key", null, () -> {
+            if (renders.incrementAndGet() == 1) {
+                release.await();
+                throw new AdmissionRejectedException("Render capacity exhausted", Duration.ofSeconds(5));
+            }
+            // Long enough for every joiner to retry and join this render
+            Thread.sleep(300);
+            return pdf;
+        }));
+        awaitCoalesced(REQUESTS - 1);
+        release.countDown();
+
+        int rejected = 0;
+        for (Future<byte[]> result : results) {
+            try {
+                assertArrayEquals(pdf, result.get(5, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                assertInstanceOf(AdmissionRejectedException.class, e.getCause());
+                rejected++;
+            }
+        }
+        // Only the rejected leader itself sees the rejection; the joiners share one new render
+        assertEquals(1, rejected);
+        assertEquals(2, renders.get());
+    }
+
+    private List<Future<byte[]>> submit(Callable<byte[]> request) {
+        ExecutorService executor = Executors.newFixedThreadPool(REQUESTS);
+        List<Future<byte[]>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(executor.submit(request));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("pdf.render.in.flight").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.counter("pdf.render.coalesced").count() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, meterRegistry.counter("pdf.render.coalesced").count());
+    }
+}
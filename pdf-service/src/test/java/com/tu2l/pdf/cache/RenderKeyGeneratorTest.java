@@ -0,0 +1,50 @@
+package com.tu2l.pdf.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.Orientation;
+
+public class RenderKeyGeneratorTest {
+    private static final String ENGINE = "wkhtmlToPdfGenerator";
+
+    @Test
+    public void ignoresInsignificantWhitespaceAndNameCase() {
+        String compact = "<html> <body class=\"a\"> <p>Hello world</p></body></html>";
+        String loose = "<HTML>\r\n  <BODY  CLASS = \"a\" >\r\n<p>Hello   \n world</P></body></html>";
+        assertEquals(key(compact), key(loose));
+    }
+
+    @Test
+    public void keepsAttributeValuesAndPreformattedTextVerbatim() {
+        assertNotEquals(key("<p class=\"Header\">x</p>"), key("<p class=\"header\">x</p>"));
+        assertNotEquals(key("<p class=Header>x</p>"), key("<p class=header>x</p>"));
+        assertNotEquals(key("<pre>a  b</pre>"), key("<pre>a b</pre>"));
+        assertNotEquals(key("a < B"), key("a < b"));
+    }
+
+    @Test
+    public void includesLayoutAndEngine() {
+        LayoutParams landscape = new LayoutParams();
+        landscape.setOrientation(Orientation.LANDSCAPE);
+        String html = "<p>x</p>";
+        assertNotEquals(key(html), RenderKeyGenerator.keyFor(html, landscape, ENGINE));
+        assertNotEquals(key(html), RenderKeyGenerator.keyFor(html, new LayoutParams(), "openHtmlToPdfGenerator"));
+    }
+
+    @Test
+    public void readerAndCharSequenceProduceSameKey() throws IOException {
+        String html = "<div>\n  <pre>  keep </pre>  <span>text</span>\n</div>";
+        assertEquals(key(html), RenderKeyGenerator.keyFor(new StringReader(html), new LayoutParams(), ENGINE));
+    }
+
+    private static String key(String html) {
+        return RenderKeyGenerator.keyFor(html, new LayoutParams(), ENGINE);
+    }
+}
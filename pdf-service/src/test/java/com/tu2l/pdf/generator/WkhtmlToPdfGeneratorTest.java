@@ -0,0 +1,51 @@
+package com.tu2l.pdf.generator;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFRenderTimeoutException;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+
+public class WkhtmlToPdfGeneratorTest {
+    // Takes 600 ms either way, and writes nothing to stdout in piped mode
+    private static final String FAKE_WKHTMLTOPDF = """
+            #!/usr/bin/env bash
+            output="${@: -1}"
+            if [ "$output" = "-" ]; then
+              cat > /dev/null
+            fi
+            sleep 0.6
+            if [ "$output" != "-" ]; then
+              printf '%s' "%PDF-1.4" > "$output"
+            fi
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void fallbackGetsOnlyTheRemainingDeadline() throws Exception {
+        Path binary = directory.resolve("wkhtmltopdf");
+        Files.writeString(binary, FAKE_WKHTMLTOPDF);
+        binary.toFile().setExecutable(true);
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getGenerator().getWkhtmltopdf().setBinary(binary.toString());
+        WkhtmlToPdfGenerator generator = new WkhtmlToPdfGenerator(properties);
+
+        PDFGeneratorConfiguration configuration = PDFGeneratorConfiguration.builder()
+                .html(HtmlSource.of("<p>x</p>"))
+                .fileName("fallback")
+                .layoutParams(new LayoutParams())
+                .renderTimeout(Duration.ofSeconds(1))
+                .build();
+
+        assertThrows(PDFRenderTimeoutException.class, () -> generator.generatePDF(configuration));
+    }
+}
@@ -0,0 +1,89 @@
+package com.tu2l.pdf.generator;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.generator.PDFGeneratorConfiguration.LayoutParams;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class WkhtmlToPdfPoolGeneratorTest {
+    // Mimics wkhtmltopdf --read-args-from-stdin: a page that fails to load still
+    // produces a PDF and prints "Done", and reports its exit code on a later line
+    private static final String FAKE_WKHTMLTOPDF = """
+            #!/usr/bin/env bash
+            while IFS= read -r line; do
+              eval "set -- $line"
+              output="${@: -1}"
+              input="${@: -2:1}"
+              echo "Loading pages (1/6)" >&2
+              if [ "$output" != "-" ]; then
+                printf '%s' "%PDF-$(cat "$input")" > "$output"
+              fi
+              echo "Printing pages (6/6)" >&2
+              echo "Done" >&2
+              if [ "$input" != "about:blank" ] && grep -q broken "$input"; then
+                sleep 0.2
+                echo "Exit with code 1 due to network error: ContentNotFoundError" >&2
+              fi
+            done
+            """;
+
+    @TempDir
+    Path directory;
+
+    private WkhtmlToPdfPoolGenerator generator;
+
+    @AfterEach
+    public void shutdown() {
+        if (generator != null) {
+            generator.shutdown();
+        }
+    }
+
+    @Test
+    public void failedPageDoesNotLeakIntoTheNextJob() throws Exception {
+        generator = generator(fakeBinary());
+
+        assertThrows(PDFException.class, () -> generator.generatePDF(configuration("broken")));
+        assertArrayEquals("%PDF-good".getBytes(StandardCharsets.US_ASCII),
+                generator.generatePDF(configuration("good")));
+        assertArrayEquals("%PDF-again".getBytes(StandardCharsets.US_ASCII),
+                generator.generatePDF(configuration("again")));
+    }
+
+    private Path fakeBinary() throws IOException {
+        Path binary = directory.resolve("wkhtmltopdf");
+        Files.writeString(binary, FAKE_WKHTMLTOPDF);
+        binary.toFile().setExecutable(true);
+        return binary;
+    }
+
+    private static WkhtmlToPdfPoolGenerator generator(Path binary) {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getGenerator().getWkhtmltopdf().setBinary(binary.toString());
+        properties.getGenerator().getWkhtmltopdf().getPool().setSize(1);
+        return new WkhtmlToPdfPoolGenerator(properties, new SimpleMeterRegistry());
+    }
+
+    private static PDFGeneratorConfiguration configuration(String html) {
+        return PDFGeneratorConfiguration.builder()
+                .html(HtmlSource.of(html))
+                .fileName(html)
+                .layoutParams(new LayoutParams())
+                .renderTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.tu2l.pdf.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.IdempotencyKeyConflictException;
+import com.tu2l.pdf.exception.PDFException;
+import com.tu2l.pdf.idempotency.IdempotencyService.Operation;
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+import com.tu2l.pdf.model.response.GeneratePDFResponse;
+import com.tu2l.pdf.repository.IdempotencyKeyRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+public class IdempotencyServiceTest {
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final IdempotencyService service = new IdempotencyService(repository, JsonMapper.builder().build(),
+            new PDFServiceProperties(), new SimpleMeterRegistry());
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    public void retryWhileRunningWaitsAndReplaysWithoutExecuting() throws Exception {
+        reserveSucceeds();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<GeneratePDFResponse> original = CompletableFuture.supplyAsync(() -> call("k1", () -> {
+            started.countDown();
+            release.await();
+            return created(42);
+        }));
+        started.await();
+        CompletableFuture<GeneratePDFResponse> retry = CompletableFuture.supplyAsync(() -> call("k1", () -> created(43)));
+        Thread.sleep(50);
+        release.countDown();
+
+        assertEquals("42", original.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("replay-42", retry.get(5, TimeUnit.SECONDS).getId());
+        assertEquals("replay-42", service.execute(Operation.SAVE, "k1", request("user-1"), () -> created(44),
+                IdempotencyServiceTest::replay).getId());
+        assertEquals(1, executions.get());
+        verify(repository).complete(anyString(), eq(42L), anyLong());
+    }
+
+    @Test
+    public void keysAreScopedToUserAndRejectDifferentRequests() throws Exception {
+        reserveSucceeds();
+        service.execute(Operation.SAVE, "k2", request("user-1"), () -> created(1), IdempotencyServiceTest::replay);
+        assertEquals("2", service.execute(Operation.SAVE, "k2", request("user-2"), () -> created(2),
+                IdempotencyServiceTest::replay).getId());
+
+        GenerateAndSavePDFRequest changed = request("user-1");
+        changed.setFileName("other");
+        assertThrows(IdempotencyKeyConflictException.class, () -> service.execute(Operation.SAVE, "k2", changed,
+                () -> created(3), IdempotencyServiceTest::replay));
+    }
+
+    @Test
+    public void failureReleasesTheKey() throws Exception {
+        reserveSucceeds();
+        assertThrows(PDFException.class, () -> service.execute(Operation.ASYNC, "k3", request("user-1"), () -> {
+            throw new PDFException("render failed");
+        }, IdempotencyServiceTest::replay));
+        verify(repository).release(anyString());
+
+        assertEquals("5", service.execute(Operation.ASYNC, "k3", request("user-1"), () -> created(5),
+                IdempotencyServiceTest::replay).getId());
+    }
+
+    private void reserveSucceeds() {
+        when(repository.reserve(anyString(), anyString(), anyLong())).thenReturn(1);
+        when(repository.complete(anyString(), anyLong(), anyLong())).thenReturn(1);
+    }
+
+    private GeneratePDFResponse call(String key, Callable<GeneratePDFResponse> action) {
+        try {
+            return service.execute(Operation.SAVE, key, request("user-1"), () -> {
+                executions.incrementAndGet();
+                return action.call();
+            }, IdempotencyServiceTest::replay);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static GenerateAndSavePDFRequest request(String userId) {
+        GenerateAndSavePDFRequest request = new GenerateAndSavePDFRequest();
+        request.setUserId(userId);
+        request.setFileName("resume");
+        request.setContent("PGh0bWw+PC9odG1sPg==");
+        return request;
+    }
+
+    private static GeneratePDFResponse created(long id) {
+        GeneratePDFResponse response = new GeneratePDFResponse();
+        response.setId(String.valueOf(id));
+        return response;
+    }
+
+    private static GeneratePDFResponse replay(long pdfId) {
+        GeneratePDFResponse response = new GeneratePDFResponse();
+        response.setId("replay-" + pdfId);
+        return response;
+    }
+}
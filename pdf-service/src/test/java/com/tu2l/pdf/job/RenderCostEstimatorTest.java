@@ -0,0 +1,50 @@
+package com.tu2l.pdf.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class RenderCostEstimatorTest {
+    private final RenderCostEstimator estimator = new RenderCostEstimator(new SimpleMeterRegistry());
+
+    @Test
+    public void readsFeaturesFromContent() {
+        String html = "<html><body><IMG src=\"a.png\"><img/><table><tr><td>x</td></tr></table>"
+                + "<p>images and tables <imgx> <tables></p></body></html>";
+        GenerateAndSavePDFRequest request = new GenerateAndSavePDFRequest();
+        request.setContent(Base64.getEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8)));
+        request.setNumberOfPages(3);
+
+        assertEquals(new RenderCostEstimator.Features(html.length(), 3, 2, 1), estimator.features(request));
+    }
+
+    @Test
+    public void learnsRenderTimesFromObservations() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            RenderCostEstimator.Features features = new RenderCostEstimator.Features(random.nextInt(500_000),
+                    1 + random.nextInt(5), random.nextInt(10), random.nextInt(4));
+            estimator.observe(features, Duration.ofMillis(renderMillis(features)));
+        }
+
+        RenderCostEstimator.Features resume = new RenderCostEstimator.Features(20_000, 2, 1, 1);
+        RenderCostEstimator.Features catalogue = new RenderCostEstimator.Features(400_000, 5, 8, 3);
+        assertEquals(renderMillis(resume), estimator.estimateMillis(resume), 5);
+        assertEquals(renderMillis(catalogue), estimator.estimateMillis(catalogue), 5);
+    }
+
+    // 80ms base, 30ms per KiB, 200ms per page, 120ms per image and 60ms per table
+    private static long renderMillis(RenderCostEstimator.Features features) {
+        return 80 + features.contentBytes() * 30 / 1024 + features.pages() * 200L + features.images() * 120L
+                + features.tables() * 60L;
+    }
+}
@@ -0,0 +1,127 @@
+package com.tu2l.pdf.job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.entity.RenderJobEntity;
+import com.tu2l.pdf.model.request.GenerateAndSavePDFRequest;
+import com.tu2l.pdf.repository.PDFRepository;
+import com.tu2l.pdf.repository.RenderJobRepository;
+import com.tu2l.pdf.storage.PDFContentReferences;
+import com.tu2l.pdf.webhook.WebhookDeliveryService;
+
+import tools.jackson.databind.json.JsonMapper;
+
+public class RenderJobServiceTest {
+    private static final long MILLIS_PER_PAGE = 1_000L;
+
+    @TempDir
+    Path directory;
+
+    private final RenderJobRepository jobRepository = mock(RenderJobRepository.class);
+    private final RenderCostEstimator costEstimator = mock(RenderCostEstimator.class);
+    private RenderJobService service;
+
+    @BeforeEach
+    public void createQueue() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(
+                "jdbc:sqlite:" + directory.resolve("jobs.db"), true));
+        jdbcTemplate.execute("create table pdf_render_jobs (id integer primary key autoincrement, "
+                + "pdf_id bigint not null, user_id varchar(255), share_tag bigint, max_share_tag bigint, "
+                + "estimated_cost_millis bigint, "
+                + "status varchar(16) not null, attempts integer not null, max_attempts integer not null, "
+                + "next_attempt_at bigint not null, lease_owner varchar(128), lease_expires_at bigint)");
+        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate).withTableName("pdf_render_jobs")
+                .usingColumns("pdf_id", "user_id", "share_tag", "max_share_tag", "estimated_cost_millis", "status",
+                        "attempts", "max_attempts", "next_attempt_at")
+                .usingGeneratedKeyColumns("id");
+        when(jobRepository.save(any())).thenAnswer(invocation -> {
+            RenderJobEntity job = invocation.getArgument(0);
+            job.setId(insert.executeAndReturnKey(new MapSqlParameterSource()
+                    .addValue("pdf_id", job.getPdfId())
+                    .addValue("user_id", job.getUserId())
+                    .addValue("share_tag", job.getShareTag())
+                    .addValue("max_share_tag", job.getMaxShareTag())
+                    .addValue("estimated_cost_millis", job.getEstimatedCostMillis())
+                    .addValue("status", job.getStatus().name())
+                    .addValue("attempts", job.getAttempts())
+                    .addValue("max_attempts", job.getMaxAttempts())
+                    .addValue("next_attempt_at", job.getNextAttemptAt())).longValue());
+            return job;
+        });
+        when(jobRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<RenderJobEntity> jobs = new ArrayList<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                RenderJobEntity job = new RenderJobEntity();
+                job.setId(id);
+                job.setPdfId(id);
+                jobs.add(job);
+            }
+            return jobs;
+        });
+        when(costEstimator.features(any())).thenAnswer(invocation -> new RenderCostEstimator.Features(0,
+                invocation.<GenerateAndSavePDFRequest>getArgument(0).getNumberOfPages(), 0, 0));
+        when(costEstimator.estimateMillis(any())).thenAnswer(
+                invocation -> invocation.<RenderCostEstimator.Features>getArgument(0).pages() * MILLIS_PER_PAGE);
+
+        service = new RenderJobService(jobRepository, mock(PDFRepository.class), mock(PDFContentReferences.class),
+                jdbcTemplate, mock(ApplicationEventPublisher.class), mock(WebhookDeliveryService.class),
+                JsonMapper.builder().build(), new PDFServiceProperties(), costEstimator);
+        service.prepareClaimQuery();
+    }
+
+    @Test
+    public void servesEachUsersJobsCheapestFirst() {
+        enqueue(1, "alice", 10);
+        enqueue(2, "alice", 10);
+        enqueue(3, "alice", 1);
+        enqueue(4, "alice", 1);
+        enqueue(5, "bob", 1);
+
+        assertEquals(List.of(3L, 4L, 5L, 1L, 2L), claimAll());
+    }
+
+    @Test
+    public void cheapJobsDeferAnExpensiveJobOnlyUntilItHasAged() {
+        enqueue(1, "alice", 10);
+        for (int i = 0; i < 150; i++) {
+            enqueue(2 + i, "alice", 1);
+        }
+
+        // Deferred by at most aging-factor (10) times its own share, i.e. behind 100 one-page jobs
+        assertEquals(100, claimAll().indexOf(1L));
+    }
+
+    private void enqueue(long pdfId, String userId, int pages) {
+        GenerateAndSavePDFRequest request = new GenerateAndSavePDFRequest();
+        request.setUserId(userId);
+        request.setNumberOfPages(pages);
+        service.enqueue(pdfId, request, null);
+    }
+
+    private List<Long> claimAll() {
+        List<Long> order = new ArrayList<>();
+        List<RenderJobEntity> claimed;
+        while (!(claimed = service.claim("worker", 1)).isEmpty()) {
+            order.add(claimed.get(0).getPdfId());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,82 @@
+package com.tu2l.pdf.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.util.ContentDigest;
+
+public class FilesystemPDFContentStoreTest {
+    private static final byte[] CONTENT = "%PDF-1.4 test test test test".getBytes(StandardCharsets.US_ASCII);
+    private static final String HASH = ContentDigest.sha256Hex(CONTENT);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void storesUncompressedContentAsPlainShardedFile() throws IOException {
+        FilesystemPDFContentStore store = store(PDFCodec.NONE);
+        store.put(HASH, CONTENT);
+
+        Path expected = directory.resolve(HASH.substring(0, 2)).resolve(HASH.substring(2, 4))
+                .resolve(HASH + ".pdf");
+        assertArrayEquals(CONTENT, Files.readAllBytes(expected));
+        Resource resource = store.load(HASH).orElseThrow();
+        assertTrue(resource.isFile());
+        assertArrayEquals(CONTENT, resource.getContentAsByteArray());
+    }
+
+    @Test
+    public void compressedContentIsDecodedOnRead() throws IOException {
+        for (PDFCodec codec : new PDFCodec[] { PDFCodec.ZSTD, PDFCodec.DEFLATE }) {
+            FilesystemPDFContentStore store = store(codec);
+            store.put(HASH, CONTENT);
+
+            assertTrue(Files.isRegularFile(store.pathFor(HASH, codec)));
+            Resource resource = store.load(HASH).orElseThrow();
+            assertFalse(resource.isFile());
+            assertEquals(CONTENT.length, resource.contentLength());
+            assertArrayEquals(CONTENT, resource.getContentAsByteArray());
+            store.delete(HASH);
+        }
+    }
+
+    @Test
+    public void existingContentIsReadRegardlessOfConfiguredCodec() throws IOException {
+        store(PDFCodec.NONE).put(HASH, CONTENT);
+        FilesystemPDFContentStore zstdStore = store(PDFCodec.ZSTD);
+        zstdStore.put(HASH, CONTENT);
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+        assertArrayEquals(CONTENT, zstdStore.load(HASH).orElseThrow().getContentAsByteArray());
+    }
+
+    @Test
+    public void missingContentAndInvalidHashes() throws IOException {
+        FilesystemPDFContentStore store = store(PDFCodec.ZSTD);
+        assertTrue(store.load(HASH).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> store.load("../../etc/passwd"));
+    }
+
+    private FilesystemPDFContentStore store(PDFCodec codec) throws IOException {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getStorage().getFilesystem().setDirectory(directory.toString());
+        properties.getStorage().getCompression().setCodec(codec);
+        return new FilesystemPDFContentStore(properties);
+    }
+}
@@ -0,0 +1,79 @@
+package com.tu2l.pdf.storage;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tu2l.pdf.repository.PDFContentReferenceRepository;
+
+public class PDFContentReferencesTest {
+    private static final String HASH = "abcdef0123456789";
+
+    private final PDFContentReferenceRepository repository = mock(PDFContentReferenceRepository.class);
+    private final PDFContentStore store = mock(PDFContentStore.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final PDFContentReferences references = new PDFContentReferences(repository, store, transactionManager);
+
+    @BeforeEach
+    public void beginTransaction() {
+        when(repository.decrement(HASH)).thenReturn(1);
+        when(repository.deleteUnreferenced(HASH)).thenReturn(1);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void endTransaction() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void keepsContentWhenTheReleaseRollsBack() throws Exception {
+        assertTrue(references.release(HASH));
+        verify(store, never()).delete(HASH);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        verify(store, never()).delete(HASH);
+    }
+
+    @Test
+    public void deletesContentOnceTheReleaseCommits() throws Exception {
+        assertTrue(references.release(HASH));
+        verify(store, never()).delete(HASH);
+
+        when(repository.findRefCount(HASH)).thenReturn(Optional.of(1L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(store).delete(HASH);
+    }
+
+    @Test
+    public void keepsContentAcquiredAgainBeforeTheDelete() throws Exception {
+        assertTrue(references.release(HASH));
+
+        when(repository.findRefCount(HASH)).thenReturn(Optional.of(2L));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+        verify(store, never()).delete(HASH);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,83 @@
+package com.tu2l.pdf.template;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.entity.PDFTemplateEntity;
+import com.tu2l.pdf.exception.PDFTemplateException;
+import com.tu2l.pdf.exception.PDFTemplateNotFoundException;
+import com.tu2l.pdf.repository.PDFTemplateRepository;
+
+public class PDFTemplateRegistryTest {
+    private final PDFTemplateRepository repository = mock(PDFTemplateRepository.class);
+    private final PDFTemplateRegistry registry = new PDFTemplateRegistry(repository);
+
+    @Test
+    public void rendersDataEscaped() throws Exception {
+        store(1, "<h1>{{name}}</h1><ul>{{#skills}}<li>{{.}}</li>{{/skills}}</ul><a href=\"{{site}}\">{{missing}}</a>");
+
+        String html = registry.render(1L, Map.of(
+                "name", "<script>x</script>",
+                "skills", List.of("Java", "SQL"),
+                "site", "javascript:alert(1)"));
+
+        assertEquals("<h1>&lt;script&gt;x&lt;/script&gt;</h1><ul><li>Java</li><li>SQL</li></ul>"
+                + "<a href=\"unsafe:javascript:alert(1)\"></a>", html);
+    }
+
+    @Test
+    public void sanitizesMarkupAssembledByTags() throws Exception {
+        store(1, "<scr{{e}}ipt>document.write('x')</scr{{e}}ipt><img src=x on{{e}}error=alert(1)>"
+                + "<a href=\"{{site}}\">cv</a>");
+
+        String html = registry.render(1L, Map.of("e", "", "site", "java\tscript:alert(1)"));
+
+        assertFalse(html.toLowerCase().contains("<script"), html);
+        assertFalse(html.toLowerCase().contains("onerror"), html);
+        assertTrue(html.contains("href=\"unsafe:java\tscript:alert(1)\""), html);
+    }
+
+    @Test
+    public void compilesOncePerVersion() throws Exception {
+        store(1, "v1 {{x}}");
+        assertEquals("v1 a", registry.render(1L, Map.of("x", "a")));
+        assertEquals("v1 b", registry.render(1L, Map.of("x", "b")));
+        verify(repository, times(1)).findById(1L);
+
+        store(2, "v2 {{x}}");
+        assertEquals("v2 c", registry.render(1L, Map.of("x", "c")));
+        verify(repository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void rejectsUnescapedTagsAndUnknownTemplates() {
+        assertThrows(PDFTemplateException.class, () -> registry.compile("<p>{{{raw}}}</p>"));
+        assertThrows(PDFTemplateException.class, () -> registry.compile("<p>{{& raw}}</p>"));
+        assertThrows(PDFTemplateException.class, () -> registry.compile("{{=<% %>=}}<%{raw}%>"));
+        assertThrows(PDFTemplateException.class, () -> registry.compile("{{#open}}"));
+
+        when(repository.findVersionById(7L)).thenReturn(Optional.empty());
+        assertThrows(PDFTemplateNotFoundException.class, () -> registry.render(7L, Map.of()));
+    }
+
+    private void store(int version, String source) {
+        PDFTemplateEntity entity = new PDFTemplateEntity();
+        entity.setId(1L);
+        entity.setVersion(version);
+        entity.setSource(source);
+        when(repository.findVersionById(1L)).thenReturn(Optional.of(version));
+        when(repository.findById(1L)).thenReturn(Optional.of(entity));
+    }
+}
@@ -0,0 +1,33 @@
+package com.tu2l.pdf.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import com.tu2l.pdf.model.response.GeneratePDFResponse;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+public class Base64ResourceSerializerTest {
+
+    @Test
+    public void writesContentAsByteArrayBase64() {
+        // Larger than Jackson's read buffer, and not a multiple of three
+        byte[] pdf = new byte[100_001];
+        new Random(7).nextBytes(pdf);
+        GeneratePDFResponse response = new GeneratePDFResponse();
+        response.setContent(new ByteArrayResource(pdf));
+        response.setFileName("resume");
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        JsonNode json = jsonMapper.readTree(jsonMapper.writeValueAsString(response));
+
+        assertEquals(Base64.getEncoder().encodeToString(pdf), json.get("content").asString());
+        assertEquals(jsonMapper.writeValueAsString(pdf), json.get("content").toString());
+    }
+}
@@ -0,0 +1,39 @@
+package com.tu2l.pdf.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
+
+public class CallbackUrlPolicyTest {
+
+    @Test
+    public void rejectsInternalDestinations() {
+        CallbackUrlPolicy policy = new CallbackUrlPolicy(new PDFServiceProperties());
+        for (String url : List.of("http://localhost:8090/pdf", "http://127.0.0.1/hook", "http://0.0.0.0/hook",
+                "http://169.254.169.254/latest/meta-data/", "http://10.1.2.3/hook", "http://172.16.0.1/hook",
+                "https://192.168.1.10/hook", "http://100.64.0.1/hook", "http://224.0.0.1/hook", "http://[::1]/hook",
+                "http://[fe80::1]/hook", "http://[fd12::1]/hook", "http://[::ffff:127.0.0.1]/hook",
+                "ftp://93.184.216.34/hook")) {
+            assertThrows(CallbackUrlRejectedException.class, () -> policy.check(URI.create(url)), url);
+        }
+        assertDoesNotThrow(() -> policy.check(URI.create("https://93.184.216.34/hook")));
+    }
+
+    @Test
+    public void restrictsToAllowedHosts() {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getWebhooks().setAllowedHosts(List.of("93.184.216.34"));
+        CallbackUrlPolicy policy = new CallbackUrlPolicy(properties);
+
+        assertDoesNotThrow(() -> policy.check(URI.create("https://93.184.216.34/hook")));
+        assertThrows(CallbackUrlRejectedException.class,
+                () -> policy.check(URI.create("https://93.184.216.35/hook")));
+    }
+}
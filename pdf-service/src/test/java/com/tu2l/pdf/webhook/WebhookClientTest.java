@@ -0,0 +1,99 @@
+package com.tu2l.pdf.webhook;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+import com.tu2l.pdf.config.PDFServiceProperties;
+import com.tu2l.pdf.exception.CallbackUrlRejectedException;
+
+public class WebhookClientTest {
+    private HttpServer server;
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedSignature = new AtomicReference<>();
+    private final AtomicInteger responseStatus = new AtomicInteger(204);
+
+    @BeforeEach
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/hook", exchange -> {
+            receivedBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            receivedSignature.set(exchange.getRequestHeaders().getFirst(WebhookClient.SIGNATURE_HEADER));
+            exchange.sendResponseHeaders(responseStatus.get(), -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void postsBatchAsJsonArray() throws Exception {
+        int status = client(null).post(hookUrl(), List.of("{\"id\":1}", "{\"id\":2}"));
+
+        assertEquals(204, status);
+        assertEquals("[{\"id\":1},{\"id\":2}]", receivedBody.get());
+        assertNull(receivedSignature.get());
+    }
+
+    @Test
+    public void signsBodyWhenSecretIsSet() throws Exception {
+        client("s3cret").post(hookUrl(), List.of("{\"id\":1}"));
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("s3cret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = HexFormat.of().formatHex(mac.doFinal("[{\"id\":1}]".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("sha256=" + expected, receivedSignature.get());
+    }
+
+    @Test
+    public void reportsErrorStatusAndUnreachableHost() throws Exception {
+        responseStatus.set(503);
+        WebhookClient client = client(null);
+        assertEquals(503, client.post(hookUrl(), List.of("{}")));
+
+        server.stop(0);
+        assertThrows(IOException.class, () -> client.post(hookUrl(), List.of("{}")));
+    }
+
+    @Test
+    public void refusesPrivateAddressesByDefault() {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        WebhookClient client = new WebhookClient(properties, new CallbackUrlPolicy(properties));
+
+        assertThrows(CallbackUrlRejectedException.class, () -> client.post(hookUrl(), List.of("{}")));
+        assertNull(receivedBody.get());
+    }
+
+    private URI hookUrl() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/hook");
+    }
+
+    private static WebhookClient client(String secret) {
+        PDFServiceProperties properties = new PDFServiceProperties();
+        properties.getWebhooks().setSigningSecret(secret);
+        // The stub listens on loopback
+        properties.getWebhooks().setAllowPrivateAddresses(true);
+        return new WebhookClient(properties, new CallbackUrlPolicy(properties));
+    }
+}